@@ -0,0 +1,60 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+//Rows per second of CatalogImporter on exported CSV and JSON Lines feeds, against adding the same games one
+//constructor call at a time. The extent is emptied before every run.
+//Usage: BulkImportBenchmark [games] [runs]
+public class BulkImportBenchmark {
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        System.out.printf("%d games, %d cores%n", games, Runtime.getRuntime().availableProcessors());
+
+        CatalogGenerator.install(games, 42);
+        List<DigitalGame> catalog = List.copyOf(DigitalGame.getAllGames());
+        Path csv = Files.createTempFile("feed", ".csv");
+        Path jsonl = Files.createTempFile("feed", ".jsonl");
+        try {
+            DigitalGame.exportExtent(csv, CatalogRenderer.Format.CSV);
+            DigitalGame.exportExtent(jsonl, CatalogRenderer.Format.JSONL);
+            System.out.printf("%-12s %12s %14s%n", "source", "seconds", "rows/s");
+            for (int run = 0; run < runs; run++) {
+                constructors(catalog);
+                feed(csv);
+                feed(jsonl);
+            }
+        } finally {
+            Files.delete(csv);
+            Files.delete(jsonl);
+        }
+    }
+
+    private static void constructors(List<DigitalGame> catalog) throws IOException {
+        CatalogGenerator.install(0, 42);
+        long start = System.nanoTime();
+        for (DigitalGame game : catalog) {
+            new DigitalGame(game.getTitle(), game.getPublisher(), game.getDescription(), Prices.toPrice(game.getPriceCents()), game.getReleaseDate(), game.getThemeTags(), game.getPublisherNote());
+        }
+        long nanos = System.nanoTime() - start;
+        print("constructor", nanos, catalog.size() * 1e9 / nanos);
+    }
+
+    private static void feed(Path path) throws IOException {
+        CatalogGenerator.install(0, 42);
+        CatalogImporter.Report report = CatalogImporter.forPath(path).importFrom(path);
+        if (!report.errors().isEmpty()) {
+            throw new IllegalStateException(report.errors().get(0).message());
+        }
+        String name = path.getFileName().toString();
+        print(name.substring(name.lastIndexOf('.') + 1), report.elapsedNanos(), report.rowsPerSecond());
+    }
+
+    private static void print(String source, long nanos, double rowsPerSecond) {
+        System.out.printf(Locale.ROOT, "%-12s %12.2f %14.0f%n", source, nanos / 1e9, rowsPerSecond);
+    }
+}
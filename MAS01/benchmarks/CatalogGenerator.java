@@ -0,0 +1,80 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Synthetic catalogs for benchmarks: Zipf-like tag popularity, 2-5 tags per game
+class CatalogGenerator {
+    //Attributes
+    static final int TAGS = 200;
+    static final int PUBLISHERS = 1000;
+
+    private CatalogGenerator() {
+    }
+
+    //Replaces the extent with a generated catalog of the given size, going through the extent file like a real load
+    static void install(int games, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<DigitalGame> catalog = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            catalog.add(DigitalGame.restore(title(i), publisher(random), description(i), priceCents(random), releaseDate(random), tags(random), null));
+        }
+        Path path = Files.createTempFile("catalog", ".bin");
+        try {
+            ExtentFile.write(path, catalog);
+            DigitalGame.loadExtent(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    static DigitalGame createGame(int number) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new DigitalGame(title(number), publisher(random), description(number), Prices.toPrice(priceCents(random)), releaseDate(random), tags(random));
+    }
+
+    static String title(int number) {
+        return "Game " + number;
+    }
+
+    static String description(int number) {
+        return "Description of game number " + number + ", an adventure with plenty of content";
+    }
+
+    static String publisher(Random random) {
+        return "Publisher " + random.nextInt(PUBLISHERS);
+    }
+
+    //Shop-like prices between 0.99 and 99.99
+    static long priceCents(Random random) {
+        return 99 + random.nextInt(9_901);
+    }
+
+    static LocalDate releaseDate(Random random) {
+        return LocalDate.ofEpochDay(10_000 + random.nextInt(9_000));
+    }
+
+    static List<String> tags(Random random) {
+        List<String> tags = new ArrayList<>();
+        int count = 2 + random.nextInt(4);
+        while (tags.size() < count) {
+            String tag = tag(random);
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    //A handful of tags are on most games, the long tail is rare
+    static String tag(Random random) {
+        double u = random.nextDouble();
+        return "Tag" + (int) (TAGS * u * u * u);
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+//Closed-loop load on CatalogServer: every client is a virtual thread that sends its next request as soon as the
+//previous one is answered. The mix is mostly tag lookups and reads with some tag changes, creates and rare saves.
+//Latencies are recorded after a warmup and reported per operation and overall.
+//Without a url the generator installs a catalog and starts the server in this JVM on a free port. Every client
+//connection takes two sockets then, so for 10k clients either raise the open file limit above 20k or start
+//CatalogServer in another process and pass its url.
+//Usage: CatalogLoadGenerator [clients, default 10000] [seconds, default 20] [games, default 100000] [url]
+public class CatalogLoadGenerator {
+    //Attributes
+    private static final int WARMUP_SECONDS = 5;
+    private static final String[] OPERATIONS = {"tagLookup", "read", "search", "tagChange", "create", "save"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(clients * 2));
+
+        CatalogServer server = null;
+        Path extent = Files.createTempFile("catalog", ".bin");
+        URI base;
+        if (args.length > 3) {
+            base = URI.create(args[3]);
+        } else {
+            CatalogGenerator.install(games, 42);
+            server = CatalogServer.start(new InetSocketAddress("localhost", 0), clients, extent);
+            base = URI.create("http://localhost:" + server.getPort());
+        }
+        System.out.printf("%d clients, %d s after %d s warmup, %s, %d cores%n", clients, seconds, WARMUP_SECONDS, base, Runtime.getRuntime().availableProcessors());
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30)).build()) {
+            run(client, base, clients, games, seconds);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            Files.deleteIfExists(extent);
+        }
+    }
+
+    private static void run(HttpClient client, URI base, int clients, int games, int seconds) throws InterruptedException {
+        Map<String, Metrics.Histogram> latencies = new LinkedHashMap<>();
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, Metrics.histogram("load." + operation));
+        }
+        Metrics.Histogram all = Metrics.histogram("load.all");
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int choice = random.nextInt(10_000);
+                    String operation = choice < 6000 ? "tagLookup" : choice < 7500 ? "read" : choice < 8500 ? "search"
+                            : choice < 9500 ? "tagChange" : choice < 9999 ? "create" : "save";
+                    HttpRequest request = request(base, operation, games, random);
+                    long start = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long elapsed = System.nanoTime() - start;
+                        latencies.get(operation).record(elapsed);
+                        all.record(elapsed);
+                        if (status >= 500) {
+                            failed.increment();
+                        } else if (status >= 400) {
+                            //Tag already present or missing, the server answered correctly
+                            rejected.increment();
+                        }
+                    } catch (IOException e) {
+                        failed.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(WARMUP_SECONDS * 1000L);
+        latencies.values().forEach(Metrics.Histogram::reset);
+        all.reset();
+        rejected.reset();
+        failed.reset();
+        Thread.sleep(seconds * 1000L);
+        Map<String, Metrics.Snapshot> snapshots = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> snapshots.put(operation, histogram.snapshot()));
+        snapshots.put("all", all.snapshot());
+        long rejectedRequests = rejected.sum();
+        long failedRequests = failed.sum();
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "operation", "requests", "p50 ms", "p99 ms", "max ms", "req/s");
+        snapshots.forEach((operation, snapshot) -> print(operation, snapshot, seconds));
+        System.out.printf("%d rejected (4xx), %d failed (5xx or I/O)%n", rejectedRequests, failedRequests);
+    }
+
+    private static HttpRequest request(URI base, String operation, int games, Random random) {
+        return switch (operation) {
+            case "tagLookup" -> get(base, "/games?limit=20&tag=" + CatalogGenerator.tag(random));
+            case "read" -> get(base, "/games/" + random.nextInt(games));
+            case "search" -> get(base, "/search?limit=10&q=number+" + random.nextInt(games));
+            case "tagChange" -> {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve("/games/" + random.nextInt(games) + "/tags/Load"));
+                yield (random.nextBoolean() ? builder.PUT(HttpRequest.BodyPublishers.noBody()) : builder.DELETE()).build();
+            }
+            case "create" -> {
+                int number = games + random.nextInt(1_000_000);
+                String line = "{\"title\":\"" + CatalogGenerator.title(number) + "\",\"publisher\":\"" + CatalogGenerator.publisher(random)
+                        + "\",\"description\":\"" + CatalogGenerator.description(number) + "\",\"price\":" + Prices.toPrice(CatalogGenerator.priceCents(random))
+                        + ",\"currency\":\"EUR\",\"releaseDate\":\"" + CatalogGenerator.releaseDate(random) + "\",\"tags\":[\"" + CatalogGenerator.tag(random) + "\"],\"note\":null}\n";
+                yield HttpRequest.newBuilder(base.resolve("/games")).POST(HttpRequest.BodyPublishers.ofString(line)).build();
+            }
+            default -> HttpRequest.newBuilder(base.resolve("/save")).POST(HttpRequest.BodyPublishers.noBody()).build();
+        };
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static void print(String operation, Metrics.Snapshot snapshot, int seconds) {
+        System.out.printf("%-10s %10d %10.2f %10.2f %10.2f %10.0f%n", operation, snapshot.getCount(), snapshot.getP50() / 1e6,
+                snapshot.getP99() / 1e6, snapshot.getMax() / 1e6, (double) snapshot.getCount() / seconds);
+    }
+}
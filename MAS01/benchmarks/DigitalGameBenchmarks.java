@@ -0,0 +1,149 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Hot paths of DigitalGame at catalog sizes from 1k to 1M games. Every benchmark and size runs in its own fork on a
+//freshly generated catalog. Run from MAS01 with gradle jmh, or one benchmark with
+//  gradle jmh -PjmhArgs='DigitalGameBenchmarks.loadExtent -p games=1000000'
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DigitalGameBenchmarks {
+    //Attributes
+    private static final long SEED = 42;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int games;
+
+    private List<DigitalGame> all;
+    private Random random;
+    private Path extent;
+
+    @State(Scope.Benchmark)
+    public static class Export {
+        @Param({"TEXT", "CSV", "JSONL"})
+        CatalogRenderer.Format format;
+
+        Path path;
+
+        @Setup
+        public void createFile() throws IOException {
+            path = Files.createTempFile("benchmark", ".export");
+        }
+
+        @TearDown
+        public void deleteFile() throws IOException {
+            Files.delete(path);
+        }
+    }
+
+    @Setup
+    public void install() throws IOException {
+        CatalogGenerator.install(games, SEED);
+        all = DigitalGame.getAllGames();
+        random = new Random(SEED);
+        extent = Files.createTempFile("benchmark", ".bin");
+        DigitalGame.saveExtent(extent);
+    }
+
+    @TearDown
+    public void deleteExtent() throws IOException {
+        DigitalGame.setCurrency("EUR");
+        Files.deleteIfExists(TextIndex.sidecar(extent));
+        Files.delete(extent);
+    }
+
+    @Benchmark
+    public List<DigitalGame> findWithSimilarTagPopular() {
+        return DigitalGame.findWithSimilarTag("Tag0");
+    }
+
+    @Benchmark
+    public List<DigitalGame> findWithSimilarTagZipf() {
+        return DigitalGame.findWithSimilarTag(CatalogGenerator.tag(random));
+    }
+
+    @Benchmark
+    public List<DigitalGame> findWithTagsAnd() {
+        return DigitalGame.findWithTags("Tag1 AND Tag2");
+    }
+
+    @Benchmark
+    public List<DigitalGame> queryPriceAndYear() {
+        return new GameQuery().priceBetween(10d, 10.5).releasedIn(2010).find();
+    }
+
+    @Benchmark
+    public List<DigitalGame> queryPublisherAndTag() {
+        return new GameQuery().publisher(CatalogGenerator.publisher(random)).withTag("Tag0").find();
+    }
+
+    @Benchmark
+    public List<DigitalGame> findSimilarGames() {
+        return DigitalGame.findSimilarGames(all.get(random.nextInt(all.size())), 10);
+    }
+
+    @Benchmark
+    public List<DigitalGame> searchTitleNumber() {
+        return DigitalGame.search(Integer.toString(random.nextInt(all.size())), 10);
+    }
+
+    @Benchmark
+    public String toStringOfGame() {
+        return all.get(random.nextInt(all.size())).toString();
+    }
+
+    @Benchmark
+    public DigitalGame setPrice() {
+        DigitalGame game = all.get(random.nextInt(all.size()));
+        game.setPriceCents(CatalogGenerator.priceCents(random));
+        return game;
+    }
+
+    @Benchmark
+    public void setCurrency() {
+        DigitalGame.setCurrency(random.nextBoolean() ? "EUR" : "PLN");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveExtent() throws IOException {
+        DigitalGame.saveExtent(extent);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int loadExtent() throws IOException {
+        DigitalGame.loadExtent(extent);
+        return DigitalGame.getAllGames().size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void exportExtent(Export export) throws IOException {
+        DigitalGame.exportExtent(export.path, export.format);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Read throughput of tag lookups on one thread and on every core, and of three readers while one writer keeps
+//toggling tags and adding games. Reads take no lock, so the all-cores score should grow with the core count.
+//Compare other thread counts with gradle jmh -PjmhArgs='ExtentContentionBenchmark.readOneThread -t 4'
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ExtentContentionBenchmark {
+    //Attributes
+    @Param({"100000"})
+    int games;
+
+    @Param({"false", "true"})
+    boolean cache;
+
+    @Setup
+    public void install() throws IOException {
+        QueryCache.setEnabled(cache);
+        CatalogGenerator.install(games, 42);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<DigitalGame> readOneThread() {
+        return DigitalGame.findWithSimilarTag(CatalogGenerator.tag(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<DigitalGame> readAllThreads() {
+        return DigitalGame.findWithSimilarTag(CatalogGenerator.tag(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public List<DigitalGame> reader() {
+        return DigitalGame.findWithSimilarTag(CatalogGenerator.tag(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public DigitalGame writer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<DigitalGame> all = DigitalGame.getAllGames();
+        if (random.nextInt(16) == 0) {
+            return CatalogGenerator.createGame(all.size());
+        }
+        DigitalGame game = all.get(random.nextInt(all.size()));
+        if (game.getThemeTags().contains("Toggle")) {
+            game.removeThemeTag("Toggle");
+        } else {
+            game.addThemeTag("Toggle");
+        }
+        return game;
+    }
+}
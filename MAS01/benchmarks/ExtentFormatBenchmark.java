@@ -0,0 +1,90 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Load time and file size of one generated catalog in the legacy serialized format, the extent file and the
+//compressed snapshot. load is the whole loadExtent path including the rebuilt indexes, decode only reads the games.
+//Every fork prints the size of the file it reads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ExtentFormatBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int games;
+
+    @Param({"SERIALIZED", "EXTENT", "SNAPSHOT"})
+    String format;
+
+    private Path path;
+
+    @Setup
+    public void save() throws IOException {
+        CatalogGenerator.install(games, 42);
+        path = Files.createTempFile("format", ".bin");
+        switch (format) {
+            case "SERIALIZED" -> {
+                try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                    DigitalGame.saveExtent(oos);
+                }
+            }
+            case "EXTENT" -> DigitalGame.saveExtent(path);
+            default -> DigitalGame.saveSnapshot(path);
+        }
+        System.out.printf("%s file of %d games: %d bytes%n", format, games, Files.size(path));
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        Files.deleteIfExists(TextIndex.sidecar(path));
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public int load() throws IOException, ClassNotFoundException {
+        switch (format) {
+            case "SERIALIZED" -> {
+                try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                    DigitalGame.loadExtent(ois);
+                }
+            }
+            case "EXTENT" -> DigitalGame.loadExtent(path);
+            default -> DigitalGame.loadSnapshot(path);
+        }
+        return DigitalGame.getAllGames().size();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException, ClassNotFoundException {
+        return switch (format) {
+            case "SERIALIZED" -> {
+                try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                    yield ois.readObject();
+                }
+            }
+            case "EXTENT" -> ExtentFile.read(path);
+            default -> SnapshotFile.read(path);
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Cost of the instrumentation on instrumented hot paths with metrics disabled and enabled. timedSection is the
+//bare Metrics.start/recordSince pair around nothing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    //Attributes
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2020, 1, 1);
+    private static final List<String> TAGS = List.of("Tag1", "Tag2");
+
+    @Param({"10000"})
+    int games;
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    private final Metrics.Histogram histogram = Metrics.histogram("benchmark.timedSection");
+    private List<DigitalGame> all;
+    private Random random;
+
+    @Setup
+    public void install() throws IOException {
+        Metrics.setEnabled(metrics);
+        CatalogGenerator.install(games, 42);
+        all = DigitalGame.getAllGames();
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public void timedSection() {
+        histogram.recordSince(Metrics.start());
+    }
+
+    @Benchmark
+    public List<DigitalGame> findWithSimilarTagRare() {
+        return DigitalGame.findWithSimilarTag("Tag150");
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return DigitalGame.validate("Title", "Publisher", "Description", 19.99, RELEASE_DATE, TAGS, null);
+    }
+
+    @Benchmark
+    public DigitalGame setPrice() {
+        DigitalGame game = all.get(random.nextInt(all.size()));
+        game.setPriceCents(CatalogGenerator.priceCents(random));
+        return game;
+    }
+}
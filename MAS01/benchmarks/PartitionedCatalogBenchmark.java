@@ -0,0 +1,68 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+//Save, full load, single partition load and tag lookups of one generated catalog split over 1..N partitions by
+//publisher. The query cache is off, so every lookup scans the tag index of every partition.
+//Usage: PartitionedCatalogBenchmark [games, default 1000000] [partition counts, default 1,2,4,8]
+public class PartitionedCatalogBenchmark {
+    //Attributes
+    private static final int LOOKUPS = 200;
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String counts = args.length > 1 ? args[1] : "1,2,4,8";
+        System.out.printf("%d games, %d cores%n", games, Runtime.getRuntime().availableProcessors());
+        QueryCache.setEnabled(false);
+
+        CatalogGenerator.install(games, 42);
+        List<DigitalGame> catalog = List.copyOf(DigitalGame.getAllGames());
+        System.out.printf("%10s %10s %10s %14s %14s%n", "partitions", "save ms", "load ms", "load one ms", "lookups/s");
+        for (String count : counts.split(",")) {
+            PartitionedCatalog partitioned = new PartitionedCatalog(Integer.parseInt(count.trim()), PartitionedCatalog.Key.PUBLISHER);
+            for (DigitalGame game : catalog) {
+                partitioned.add(game.getTitle(), game.getPublisher(), game.getDescription(), game.getPrice(), game.getReleaseDate(), game.getThemeTags(), null);
+            }
+            run(partitioned);
+        }
+    }
+
+    private static void run(PartitionedCatalog catalog) throws IOException {
+        Path directory = Files.createTempDirectory("partitions");
+        try {
+            long start = System.nanoTime();
+            catalog.save(directory);
+            long save = System.nanoTime() - start;
+
+            PartitionedCatalog loaded = new PartitionedCatalog(catalog.getPartitionCount(), catalog.getKey());
+            start = System.nanoTime();
+            loaded.load(directory);
+            long load = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            new PartitionedCatalog(catalog.getPartitionCount(), catalog.getKey()).load(directory, 0);
+            long loadOne = System.nanoTime() - start;
+
+            Random random = new Random(42);
+            start = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                found += loaded.findWithSimilarTag(CatalogGenerator.tag(random)).size();
+            }
+            long lookups = System.nanoTime() - start;
+            System.out.printf("%10d %10.0f %10.0f %14.0f %14.0f%s%n", catalog.getPartitionCount(), save / 1e6, load / 1e6, loadOne / 1e6,
+                    LOOKUPS * 1e9 / lookups, found == 0 ? " (no matches)" : "");
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Zipf-distributed tag lookups with and without the query cache, while a share of the operations toggles a tag on a
+//random game. Every toggle drops the cached results of the toggled tag only.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QueryCacheBenchmark {
+    //Attributes
+    private static final long SEED = 42;
+
+    @Param({"100000"})
+    int games;
+
+    @Param({"0", "1", "10"})
+    int writePercent;
+
+    @Param({"false", "true"})
+    boolean cache;
+
+    private List<DigitalGame> all;
+    private Random random;
+
+    @Setup
+    public void install() throws IOException {
+        QueryCache.setEnabled(cache);
+        CatalogGenerator.install(games, SEED);
+        all = DigitalGame.getAllGames();
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    public Object findWithSimilarTagZipf() {
+        if (random.nextInt(100) < writePercent) {
+            DigitalGame game = all.get(random.nextInt(all.size()));
+            String tag = CatalogGenerator.tag(random);
+            if (game.getThemeTags().contains(tag)) {
+                if (game.getThemeTags().size() > 1) {
+                    game.removeThemeTag(tag);
+                }
+            } else {
+                game.addThemeTag(tag);
+            }
+            return game;
+        }
+        return DigitalGame.findWithSimilarTag(CatalogGenerator.tag(random));
+    }
+}
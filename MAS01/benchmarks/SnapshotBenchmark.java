@@ -0,0 +1,50 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+//Save and load of one generated catalog as an extent file and as a compressed snapshot. Snapshot blocks are
+//compressed and decoded on the common pool, run with -Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+//to compare core counts.
+//Usage: SnapshotBenchmark [games, default 1000000] [rounds, default 3]
+public class SnapshotBenchmark {
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        System.out.printf("%d games, %d cores, pool parallelism %d%n", games, Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.getCommonPoolParallelism());
+        CatalogGenerator.install(games, 42);
+
+        Path extent = Files.createTempFile("games", ".bin");
+        Path snapshot = Files.createTempFile("games", ".snapshot");
+        try {
+            System.out.printf("%10s %10s %10s %10s%n", "format", "save ms", "load ms", "MB");
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                DigitalGame.saveExtent(extent);
+                long save = System.nanoTime() - start;
+                start = System.nanoTime();
+                DigitalGame.loadExtent(extent);
+                long load = System.nanoTime() - start;
+                System.out.printf("%10s %10.0f %10.0f %10.1f%n", "extent", save / 1e6, load / 1e6,
+                        (Files.size(extent) + Files.size(TextIndex.sidecar(extent))) / 1e6);
+
+                start = System.nanoTime();
+                DigitalGame.saveSnapshot(snapshot);
+                save = System.nanoTime() - start;
+                start = System.nanoTime();
+                DigitalGame.loadSnapshot(snapshot);
+                load = System.nanoTime() - start;
+                System.out.printf("%10s %10.0f %10.0f %10.1f%n", "snapshot", save / 1e6, load / 1e6,
+                        (Files.size(snapshot) + Files.size(TextIndex.sidecar(snapshot))) / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(extent));
+            Files.delete(extent);
+            Files.deleteIfExists(TextIndex.sidecar(snapshot));
+            Files.delete(snapshot);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Rows of a feed where a share of the rows is invalid, checked by catching the setters' exceptions, by
+//DigitalGame.validate and by the constructor. One invocation is one pass over ROWS rows and the scores are rows/s.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ValidationBenchmark.ROWS)
+public class ValidationBenchmark {
+    //Attributes
+    static final int ROWS = 10_000;
+
+    @Param({"0", "10"})
+    int invalidPercent;
+
+    private Row[] rows;
+
+    private record Row(String title, String publisher, String description, long priceCents, LocalDate releaseDate, List<String> tags, String note) {
+    }
+
+    @Setup
+    public void createFeed() {
+        rows = feed(invalidPercent, new Random(42));
+    }
+
+    @Benchmark
+    public int exceptions() {
+        int valid = 0;
+        for (Row row : rows) {
+            try {
+                DigitalGame.restore(row.title, row.publisher, row.description, row.priceCents, row.releaseDate, row.tags, row.note);
+                valid++;
+            } catch (IllegalArgumentException e) {
+                //Rejected row
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int result() {
+        int valid = 0;
+        for (Row row : rows) {
+            if (DigitalGame.validate(row.title, row.publisher, row.description, row.priceCents, row.releaseDate, row.tags, row.note).isValid()) {
+                DigitalGame.restore(row.title, row.publisher, row.description, row.priceCents, row.releaseDate, row.tags, row.note);
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int validateOnly() {
+        int valid = 0;
+        for (Row row : rows) {
+            if (DigitalGame.validate(row.title, row.publisher, row.description, row.priceCents, row.releaseDate, row.tags, row.note).isValid()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    //The public constructor into a fresh catalog, which validates once and then registers the game
+    @Benchmark
+    public int constructor() {
+        Catalog catalog = new Catalog();
+        int valid = 0;
+        for (Row row : rows) {
+            try {
+                new DigitalGame(catalog, row.title, row.publisher, row.description, Prices.toPrice(row.priceCents), row.releaseDate, row.tags, row.note);
+                valid++;
+            } catch (IllegalArgumentException e) {
+                //Rejected row
+            }
+        }
+        return valid;
+    }
+
+    //Invalid rows break one field each, the fields are spread evenly over the invalid rows
+    private static Row[] feed(int invalidPercent, Random random) {
+        Row[] rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            String title = CatalogGenerator.title(i);
+            long priceCents = CatalogGenerator.priceCents(random);
+            LocalDate releaseDate = CatalogGenerator.releaseDate(random);
+            List<String> tags = CatalogGenerator.tags(random);
+            if (random.nextInt(100) < invalidPercent) {
+                switch (random.nextInt(4)) {
+                    case 0 -> title = " ";
+                    case 1 -> priceCents = 0;
+                    case 2 -> releaseDate = LocalDate.now().plusYears(1);
+                    default -> tags = List.of(" ");
+                }
+            }
+            rows[i] = new Row(title, CatalogGenerator.publisher(random), CatalogGenerator.description(i), priceCents, releaseDate, tags, null);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+//List that only grows at the end. Appends are serialized, reads never lock: an element is written
+//before the size that covers it is published, so every reader sees a complete prefix.
+class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+    //Attributes
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private volatile Object[][] chunks = new Object[1][];
+    private volatile int size = 0;
+
+    AppendOnlyList() {
+    }
+
+    AppendOnlyList(List<E> elements) {
+        addAll(elements);
+    }
+
+    @Override
+    public synchronized boolean add(E element) {
+        int index = size;
+        Object[][] current = chunks;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new Object[CHUNK_SIZE];
+        }
+        current[chunk][index & (CHUNK_SIZE - 1)] = element;
+        chunks = current;
+        size = index + 1;
+        return true;
+    }
+
+    //The size is published once after the last element, readers see none or all of the batch
+    @Override
+    public synchronized boolean addAll(Collection<? extends E> elements) {
+        int index = size;
+        Object[][] current = chunks;
+        for (E element : elements) {
+            int chunk = index >>> CHUNK_BITS;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[chunk] == null) {
+                current[chunk] = new Object[CHUNK_SIZE];
+            }
+            current[chunk][index & (CHUNK_SIZE - 1)] = element;
+            index++;
+        }
+        chunks = current;
+        size = index;
+        return !elements.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (E) chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //Fixed-size view of the elements present right now, later appends do not show up in it
+    List<E> snapshot() {
+        int length = size;
+        Object[][] current = chunks;
+        return new Snapshot<>(current, length);
+    }
+
+    private static class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        Snapshot(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (E) chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
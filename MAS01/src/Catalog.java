@@ -0,0 +1,607 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//One catalog of games with its own extent, indexes, caches, journal and display currency. Catalogs share nothing
+//but the tag dictionary and the exchange rates. DigitalGame's static methods work on the default catalog.
+public class Catalog {
+    //Attributes
+    private static volatile Catalog defaultCatalog = new Catalog();
+    //Replacing the extent and adding games take the write lock, mutating a game takes the read lock plus the game's lock.
+    //Queries take no lock at all, they work on the volatile extent and tag index references.
+    private final ReentrantReadWriteLock extentLock = new ReentrantReadWriteLock();
+    //Games share a fixed set of locks by identity. They are j.u.c locks, a virtual thread waiting for one parks
+    //instead of pinning its carrier.
+    private final ReentrantLock[] gameLocks = new ReentrantLock[64];
+    private volatile List<DigitalGame> extent = new AppendOnlyList<>();
+    private volatile TagIndex tagIndex = new TagIndex();
+    //Built by the first range query after a load, so loading does not pay for indexes nobody uses
+    private volatile SecondaryIndexes indexes = null;
+    //Read with the extent file when it was saved next to it, built by the first search otherwise
+    private volatile TextIndex textIndex = null;
+    private final TagSimilarity similarity = new TagSimilarity();
+    private final QueryCache queryCache = new QueryCache();
+    private volatile int generation = 1;
+    private volatile ExtentJournal journal = null;
+    private volatile String currency = "EUR";
+    private static final Metrics.Histogram similarTagLatency = Metrics.histogram("query.findWithSimilarTag");
+    private static final Metrics.Histogram tagsLatency = Metrics.histogram("query.findWithTags");
+    private static final Metrics.Histogram queryLatency = Metrics.histogram("query.gameQuery");
+    private static final Metrics.Histogram similarGamesLatency = Metrics.histogram("query.findSimilarGames");
+    private static final Metrics.Histogram searchLatency = Metrics.histogram("query.search");
+    private static final Metrics.Histogram saveLatency = Metrics.histogram("extent.save");
+    private static final Metrics.Histogram loadLatency = Metrics.histogram("extent.load");
+    private static final Metrics.Histogram openLatency = Metrics.histogram("extent.open");
+    private static final Metrics.Histogram snapshotSaveLatency = Metrics.histogram("snapshot.save");
+    private static final Metrics.Histogram snapshotLoadLatency = Metrics.histogram("snapshot.load");
+    private static final Metrics.Histogram importLatency = Metrics.histogram("extent.appendAll");
+
+    static {
+        Metrics.gauge("extent.size", () -> defaultCatalog.extent.size());
+        Metrics.gauge("tagDictionary.size", TagDictionary::size);
+        Metrics.gauge("queryCache.hits", () -> defaultCatalog.queryCache.hits());
+        Metrics.gauge("queryCache.misses", () -> defaultCatalog.queryCache.misses());
+    }
+
+    public Catalog() {
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public static Catalog getDefault() {
+        return defaultCatalog;
+    }
+
+    //Games created without a catalog and DigitalGame's static methods use this one from now on
+    public static void setDefault(Catalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("[ERROR] Catalog cannot be null");
+        }
+        defaultCatalog = catalog;
+    }
+
+    public int size() {
+        return extent.size();
+    }
+
+    public List<DigitalGame> getAllGames() {
+        List<DigitalGame> games = extent;
+        if (games instanceof AppendOnlyList<DigitalGame> list) {
+            return Collections.unmodifiableList(list.snapshot());
+        }
+        if (games instanceof MappedGameStore store) {
+            return Collections.unmodifiableList(store.snapshot());
+        }
+        return Collections.unmodifiableList(games);
+    }
+
+    //Called by the constructor once every field is set
+    void add(DigitalGame game) {
+        extentLock.writeLock().lock();
+        try {
+            game.register(this, extent.size(), generation);
+            extent.add(game);
+            tagIndex.addAll(game, game.getTagIds());
+            if (indexes != null) {
+                indexes.add(game);
+            }
+            if (textIndex != null) {
+                textIndex.update(game.getOrdinal(), game);
+            }
+            similarity.tagsChanged(game);
+            queryCache.invalidate(game.getTagIds());
+            if (journal != null) {
+                journal.appendCreate(game);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            extentLock.writeLock().unlock();
+        }
+    }
+
+    public void saveExtent(ObjectOutputStream oos) throws IOException {
+        oos.writeObject(new ArrayList<>(getAllGames()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void loadExtent(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        replaceExtent((List<DigitalGame>) ois.readObject(), null);
+    }
+
+    //The text index is written next to the extent file, so loading it again does not tokenize every game
+    public void saveExtent(Path path) throws IOException {
+        long start = Metrics.start();
+        TextIndex.Builder text = new TextIndex.Builder();
+        int stamp = ExtentFile.write(path, getAllGames(), text);
+        text.build().write(TextIndex.sidecar(path), stamp);
+        saveLatency.recordSince(start);
+    }
+
+    public void loadExtent(Path path) throws IOException {
+        long start = Metrics.start();
+        List<DigitalGame> games = ExtentFile.read(path);
+        replaceExtent(games, TextIndex.read(TextIndex.sidecar(path), ExtentFile.readStamp(path), games.size()));
+        loadLatency.recordSince(start);
+    }
+
+    //Compressed and checksummed, see SnapshotFile. The text index sidecar is written as for extent files.
+    public void saveSnapshot(Path path) throws IOException {
+        long start = Metrics.start();
+        TextIndex.Builder text = new TextIndex.Builder();
+        int stamp = SnapshotFile.write(path, getAllGames(), text);
+        text.build().write(TextIndex.sidecar(path), stamp);
+        snapshotSaveLatency.recordSince(start);
+    }
+
+    public void loadSnapshot(Path path) throws IOException {
+        long start = Metrics.start();
+        List<DigitalGame> games = SnapshotFile.read(path);
+        replaceExtent(games, TextIndex.read(TextIndex.sidecar(path), SnapshotFile.readStamp(path), games.size()));
+        snapshotLoadLatency.recordSince(start);
+    }
+
+    //Maps the extent file instead of reading it, games are decoded only when a query or iteration reaches them
+    public void openExtent(Path path) throws IOException {
+        long start = Metrics.start();
+        extentLock.writeLock().lock();
+        try {
+            generation++;
+            MappedGameStore store = MappedGameStore.open(path, this, generation);
+            extent = store;
+            tagIndex = new TagIndex();
+            indexes = null;
+            textIndex = TextIndex.read(TextIndex.sidecar(path), ExtentFile.readStamp(path), store.size());
+            similarity.clear();
+            queryCache.clear();
+        } finally {
+            extentLock.writeLock().unlock();
+        }
+        openLatency.recordSince(start);
+    }
+
+    //Games of a replaced extent keep their old generation, so they are no longer indexed or journaled
+    private void replaceExtent(List<DigitalGame> games, TextIndex text) {
+        extentLock.writeLock().lock();
+        try {
+            generation++;
+            for (int i = 0; i < games.size(); i++) {
+                games.get(i).register(this, i, generation);
+            }
+            extent = new AppendOnlyList<>(games);
+            tagIndex = TagIndex.of(games);
+            indexes = null;
+            textIndex = text;
+            similarity.clear();
+            queryCache.clear();
+        } finally {
+            extentLock.writeLock().unlock();
+        }
+    }
+
+    //Adds games built with restore in one step: one write lock, one pass over the tag index and one similarity reset.
+    //When the batch outgrows the extent the lazily built indexes are dropped, rebuilding them later is cheaper.
+    void appendAll(List<DigitalGame> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        long started = Metrics.start();
+        extentLock.writeLock().lock();
+        try {
+            int start = extent.size();
+            for (int i = 0; i < games.size(); i++) {
+                games.get(i).register(this, start + i, generation);
+            }
+            extent.addAll(games);
+            tagIndex.addAll(games);
+            boolean rebuild = games.size() > start;
+            if (indexes != null) {
+                if (rebuild) {
+                    indexes = null;
+                } else {
+                    games.forEach(indexes::add);
+                }
+            }
+            if (textIndex != null) {
+                if (rebuild) {
+                    textIndex = null;
+                } else {
+                    games.forEach(game -> textIndex.update(game.getOrdinal(), game));
+                }
+            }
+            similarity.clear();
+            BitSet tags = new BitSet();
+            for (DigitalGame game : games) {
+                for (int id : game.getTagIds()) {
+                    tags.set(id);
+                }
+            }
+            queryCache.invalidate(tags.stream().toArray());
+            if (journal != null) {
+                for (DigitalGame game : games) {
+                    journal.appendCreate(game);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            extentLock.writeLock().unlock();
+        }
+        importLatency.recordSince(started);
+    }
+
+    boolean isCurrent(int generation) {
+        return generation == this.generation;
+    }
+
+    //Mutations of games in the extent are appended to the journal until the next full save
+    public void attachJournal(ExtentJournal extentJournal) {
+        journal = extentJournal;
+    }
+
+    public void detachJournal() {
+        journal = null;
+    }
+
+    void journal(DigitalGame game, int operation, String value) {
+        ExtentJournal current = journal;
+        if (current != null) {
+            try {
+                current.append(operation, game.getOrdinal(), value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    void journal(DigitalGame game, int operation, long value) {
+        ExtentJournal current = journal;
+        if (current != null) {
+            try {
+                current.append(operation, game.getOrdinal(), value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    //Range queries, similar games and a text index rebuild work on every game, a mapped extent is decoded in full first.
+    //Changing or adding games keeps the extent mapped, the store holds those games in its overlay.
+    private void promoteMappedExtent() {
+        if (!(extent instanceof MappedGameStore)) {
+            return;
+        }
+        extentLock.writeLock().lock();
+        try {
+            if (extent instanceof MappedGameStore store) {
+                List<DigitalGame> games = store.materializeAll();
+                extent = new AppendOnlyList<>(games);
+                tagIndex = TagIndex.of(games);
+                indexes = null;
+            }
+        } finally {
+            extentLock.writeLock().unlock();
+        }
+    }
+
+    //Applies a change to a game of the extent, changes of one game are serialized on its lock
+    void update(DigitalGame game, Runnable change) {
+        extentLock.readLock().lock();
+        try {
+            if (extent instanceof MappedGameStore store) {
+                store.pin(game);
+            }
+            Lock lock = lockOf(game);
+            lock.lock();
+            try {
+                change.run();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            extentLock.readLock().unlock();
+        }
+    }
+
+    //Held by every change of the game, readers that need all its fields from one state hold it too
+    Lock lockOf(DigitalGame game) {
+        return gameLocks[System.identityHashCode(game) & (gameLocks.length - 1)];
+    }
+
+    //Index maintenance for a registered game, called by its setters inside update
+    void textChanged(DigitalGame game) {
+        TextIndex current = textIndex;
+        if (current != null) {
+            current.update(game.getOrdinal(), game);
+        }
+    }
+
+    void publisherChanged(DigitalGame game, String old, String publisher) {
+        SecondaryIndexes current = indexes;
+        if (current != null) {
+            current.updatePublisher(game, old, publisher);
+        }
+    }
+
+    void priceChanged(DigitalGame game, long old, long priceCents) {
+        SecondaryIndexes current = indexes;
+        if (current != null) {
+            current.updatePrice(game, old, priceCents);
+        }
+    }
+
+    void releaseDateChanged(DigitalGame game, LocalDate old, LocalDate releaseDate) {
+        SecondaryIndexes current = indexes;
+        if (current != null) {
+            current.updateReleaseDate(game, old, releaseDate);
+        }
+    }
+
+    void tagAdded(DigitalGame game, int tagId) {
+        tagIndex.add(game, tagId);
+        similarity.tagsChanged(game);
+        queryCache.invalidate(tagId);
+    }
+
+    void tagRemoved(DigitalGame game, int tagId) {
+        tagIndex.remove(game, tagId);
+        similarity.tagsChanged(game);
+        queryCache.invalidate(tagId);
+    }
+
+    public List<DigitalGame> findWithSimilarTag(String tag) {
+        if (tag == null || tag.isBlank()) {
+            return Collections.emptyList();
+        }
+        long start = Metrics.start();
+        //Tags are stored trimmed, the lookup and the cache key use the same trimmed tag
+        String trimmed = tag.trim();
+        List<DigitalGame> result = queryCache.get("tag:" + trimmed, List.of(trimmed),
+                () -> extent instanceof MappedGameStore store ? List.copyOf(store.find(trimmed)) : List.copyOf(tagIndex.find(trimmed)));
+        similarTagLatency.recordSince(start);
+        return result;
+    }
+
+    public List<DigitalGame> findWithAllTags(String... tags) {
+        List<String> query = queryTags(tags);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(findAll(query));
+    }
+
+    public List<DigitalGame> findWithAnyTag(String... tags) {
+        List<String> query = queryTags(tags);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (extent instanceof MappedGameStore store) {
+            return List.copyOf(store.findAny(query));
+        }
+        return List.copyOf(tagIndex.findAny(query));
+    }
+
+    //Query in the form "Action AND Racing OR Simulator", AND binds tighter than OR
+    public List<DigitalGame> findWithTags(String query) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        long start = Metrics.start();
+        List<List<String>> alternatives = new ArrayList<>();
+        List<String> read = new ArrayList<>();
+        for (String alternative : query.trim().split("\\s+OR\\s+")) {
+            List<String> tags = queryTags(alternative.split("\\s+AND\\s+"));
+            if (!tags.isEmpty()) {
+                alternatives.add(tags);
+                read.addAll(tags);
+            }
+        }
+        //Keyed by the parsed query, so spacing around the operators does not make separate entries
+        List<DigitalGame> sorted = queryCache.get("tags:" + alternatives, read, () -> {
+            Set<DigitalGame> result = new LinkedHashSet<>();
+            for (List<String> tags : alternatives) {
+                result.addAll(findAll(tags));
+            }
+            return List.copyOf(TagIndex.sorted(result));
+        });
+        tagsLatency.recordSince(start);
+        return sorted;
+    }
+
+    //Hits and misses of findWithSimilarTag and findWithTags, the default catalog's are also published as gauges
+    QueryCache.Stats queryCacheStats() {
+        return queryCache.stats();
+    }
+
+    private Collection<DigitalGame> findAll(List<String> tags) {
+        if (extent instanceof MappedGameStore store) {
+            return store.findAll(tags);
+        }
+        return tagIndex.findAll(tags);
+    }
+
+    private static List<String> queryTags(String... tags) {
+        if (tags == null) {
+            return Collections.emptyList();
+        }
+        List<String> query = new ArrayList<>();
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank()) {
+                query.add(tag.trim());
+            }
+        }
+        return query;
+    }
+
+    public List<DigitalGame> findWithPriceBetween(Double min, Double max) {
+        return new GameQuery().priceBetween(min, max).find(this);
+    }
+
+    public List<DigitalGame> findReleasedBetween(LocalDate from, LocalDate to) {
+        return new GameQuery().releasedBetween(from, to).find(this);
+    }
+
+    public List<DigitalGame> findByPublisher(String publisher) {
+        return new GameQuery().publisher(publisher).find(this);
+    }
+
+    //Range indexes are only kept on the heap, a mapped extent is decoded in full before the first query
+    List<DigitalGame> find(GameQuery query) {
+        promoteMappedExtent();
+        SecondaryIndexes current = indexes;
+        if (current == null) {
+            extentLock.writeLock().lock();
+            try {
+                if (indexes == null) {
+                    indexes = SecondaryIndexes.of(getAllGames());
+                }
+                current = indexes;
+            } finally {
+                extentLock.writeLock().unlock();
+            }
+        }
+        long start = Metrics.start();
+        List<DigitalGame> result = query.execute(getAllGames(), tagIndex, current);
+        queryLatency.recordSince(start);
+        return result;
+    }
+
+    //Games sharing the most tags with the given one by Jaccard similarity, most similar first
+    public List<DigitalGame> findSimilarGames(DigitalGame game, int limit) {
+        if (game == null) {
+            throw new IllegalArgumentException("[ERROR] Game cannot be null");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("[ERROR] Limit must be at least one");
+        }
+        promoteMappedExtent();
+        long start = Metrics.start();
+        List<DigitalGame> result = similarity.findSimilar(game, limit, getAllGames());
+        similarGamesLatency.recordSince(start);
+        return result;
+    }
+
+    //Free text search over title, description and publisher note, best match first. "word*" matches by prefix.
+    public List<DigitalGame> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("[ERROR] Limit must be at least one");
+        }
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        long start = Metrics.start();
+        TextIndex index = textIndex();
+        List<DigitalGame> games = extent;
+        List<DigitalGame> result = new ArrayList<>(limit);
+        for (int ordinal : index.search(query, limit, games.size())) {
+            if (ordinal < games.size()) {
+                result.add(games.get(ordinal));
+            }
+        }
+        searchLatency.recordSince(start);
+        return List.copyOf(result);
+    }
+
+    private TextIndex textIndex() {
+        TextIndex current = textIndex;
+        if (current == null || current.needsRebuild()) {
+            extentLock.writeLock().lock();
+            try {
+                if (textIndex == null || textIndex.needsRebuild()) {
+                    promoteMappedExtent();
+                    textIndex = TextIndex.of(getAllGames());
+                }
+                current = textIndex;
+            } finally {
+                extentLock.writeLock().unlock();
+            }
+        }
+        return current;
+    }
+
+    //Takes the percentage off the price of every game with the tag, returns how many games were discounted
+    public int applyDiscount(String tag, int percent) {
+        if (percent < 1 || percent > 99) {
+            throw new IllegalArgumentException("[ERROR] Discount must be between 1 and 99 percent");
+        }
+        List<DigitalGame> games = findWithSimilarTag(tag);
+        for (DigitalGame game : games) {
+            game.setPriceCents(Prices.discount(game.getPriceCents(), percent));
+        }
+        return games.size();
+    }
+
+    public long[] getPricesInCents() {
+        List<DigitalGame> games = getAllGames();
+        long[] prices = new long[games.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = games.get(i).getPriceCents();
+        }
+        return prices;
+    }
+
+    public long[] getSortedPricesInCents() {
+        long[] prices = getPricesInCents();
+        Arrays.sort(prices);
+        return prices;
+    }
+
+    public long getTotalPriceCents() {
+        long total = 0;
+        for (DigitalGame game : getAllGames()) {
+            total += game.getPriceCents();
+        }
+        return total;
+    }
+
+    public double getAveragePrice() {
+        List<DigitalGame> games = getAllGames();
+        return games.isEmpty() ? 0 : Prices.toPrice(getTotalPriceCents()) / games.size();
+    }
+
+    //Writes every game in one pass, prices in the catalog's currency
+    public void exportExtent(Path path, CatalogRenderer.Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CatalogRenderer(format, currency).render(getAllGames(), channel);
+        }
+    }
+
+    public void show() {
+        try {
+            new CatalogRenderer(CatalogRenderer.Format.TEXT, currency).render(getAllGames(), System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.flush();
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        if (!ExchangeRates.isCurrencyCode(currency)) {
+            throw new IllegalArgumentException("[ERROR] Invalid currency");
+        }
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,477 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+//Loads publisher feeds in the CSV and JSON Lines layouts CatalogRenderer writes. The reading thread only cuts the
+//input into chunks of records, the chunks are parsed and validated in parallel with the setter rules and the valid
+//games are appended to the extent in one batch. A row that fails is reported with its line number and skipped.
+public class CatalogImporter {
+    //Attributes
+    static final int CHUNK_ROWS = 4096;
+    private static final String[] COLUMNS = {"title", "publisher", "description", "price", "currency", "releaseDate", "tags", "note"};
+    private static final int TITLE = 0, PUBLISHER = 1, DESCRIPTION = 2, PRICE = 3, CURRENCY = 4, RELEASE_DATE = 5, TAGS = 6, NOTE = 7;
+
+    private final CatalogRenderer.Format format;
+    private final Catalog catalog;
+
+    public record RowError(long line, String message) {
+    }
+
+    public record Report(long rows, int imported, List<RowError> errors, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+    }
+
+    public CatalogImporter(CatalogRenderer.Format format) {
+        this(format, Catalog.getDefault());
+    }
+
+    public CatalogImporter(CatalogRenderer.Format format, Catalog catalog) {
+        if (format == null) {
+            throw new IllegalArgumentException("[ERROR] Format cannot be null");
+        }
+        if (format == CatalogRenderer.Format.TEXT) {
+            throw new IllegalArgumentException("[ERROR] Text catalogs cannot be imported");
+        }
+        if (catalog == null) {
+            throw new IllegalArgumentException("[ERROR] Catalog cannot be null");
+        }
+        this.format = format;
+        this.catalog = catalog;
+    }
+
+    //Format from the file extension, .csv or .jsonl
+    public static CatalogImporter forPath(Path path) {
+        String name = path.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT);
+        try {
+            return new CatalogImporter(CatalogRenderer.Format.valueOf(extension));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("[ERROR] Only .csv and .jsonl files can be imported");
+        }
+    }
+
+    public Report importFrom(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    public Report importFrom(Reader input) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input, 64 * 1024);
+        long line = 0;
+        int[] columns = null;
+        if (format == CatalogRenderer.Format.CSV) {
+            String header = reader.readLine();
+            if (header == null) {
+                return new Report(0, 0, List.of(), System.nanoTime() - start);
+            }
+            line++;
+            columns = csvColumns(header);
+        }
+
+        List<CompletableFuture<Chunk>> pending = new ArrayList<>();
+        Chunk chunk = new Chunk();
+        long rows = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            long first = ++line;
+            if (text.isBlank()) {
+                continue;
+            }
+            //A quoted CSV field may hold line breaks, the record goes on until its quotes are balanced
+            if (format == CatalogRenderer.Format.CSV) {
+                int quotes = count(text, '"');
+                StringBuilder record = null;
+                String next;
+                while (quotes % 2 == 1 && (next = reader.readLine()) != null) {
+                    line++;
+                    if (record == null) {
+                        record = new StringBuilder(text);
+                    }
+                    record.append('\n').append(next);
+                    quotes += count(next, '"');
+                }
+                if (record != null) {
+                    text = record.toString();
+                }
+            }
+            chunk.add(first, text);
+            rows++;
+            if (chunk.size == CHUNK_ROWS) {
+                pending.add(submit(chunk, columns));
+                chunk = new Chunk();
+            }
+        }
+        if (chunk.size > 0) {
+            pending.add(submit(chunk, columns));
+        }
+
+        List<DigitalGame> games = new ArrayList<>((int) Math.min(rows, Integer.MAX_VALUE));
+        List<RowError> errors = new ArrayList<>();
+        for (CompletableFuture<Chunk> future : pending) {
+            Chunk done = future.join();
+            games.addAll(done.games);
+            errors.addAll(done.errors);
+        }
+        catalog.appendAll(games);
+        return new Report(rows, games.size(), List.copyOf(errors), System.nanoTime() - start);
+    }
+
+    private CompletableFuture<Chunk> submit(Chunk chunk, int[] columns) {
+        return CompletableFuture.supplyAsync(() -> {
+            chunk.validate(format, columns);
+            return chunk;
+        });
+    }
+
+    //Position of every known column in the header, -1 for the ones the feed does not have
+    private static int[] csvColumns(String header) throws IOException {
+        List<String> names = splitCsv(header);
+        int[] columns = new int[COLUMNS.length + 1];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < names.size(); i++) {
+            int column = Arrays.asList(COLUMNS).indexOf(names.get(i).trim());
+            if (column >= 0) {
+                columns[column] = i;
+            }
+        }
+        for (int column : new int[]{TITLE, PUBLISHER, DESCRIPTION, PRICE, RELEASE_DATE, TAGS}) {
+            if (columns[column] < 0) {
+                throw new IOException("[ERROR] Missing column " + COLUMNS[column]);
+            }
+        }
+        columns[COLUMNS.length] = names.size();
+        return columns;
+    }
+
+    //Rows are checked without exceptions: every problem is added to errors and null is returned for a rejected row
+    private static DigitalGame csvRow(String record, int[] columns, long line, List<RowError> errors) {
+        List<String> fields = splitCsv(record);
+        int expected = columns[COLUMNS.length];
+        if (fields.size() != expected) {
+            errors.add(new RowError(line, "[ERROR] Expected " + expected + " fields but found " + fields.size()));
+            return null;
+        }
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = columns[i] < 0 ? null : fields.get(columns[i]);
+        }
+        List<String> tags = values[TAGS].isEmpty() ? List.of() : Arrays.asList(values[TAGS].split(";", -1));
+        return game(values, tags, line, errors);
+    }
+
+    private static DigitalGame jsonRow(String record, long line, List<RowError> errors) {
+        Map<String, Object> object = new JsonLine(record).object();
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < values.length; i++) {
+            if (i == TAGS) {
+                continue;
+            }
+            Object value = object.get(COLUMNS[i]);
+            if (value != null && !(value instanceof String)) {
+                errors.add(new RowError(line, "[ERROR] Field " + COLUMNS[i] + " must be a string or a number"));
+                return null;
+            }
+            values[i] = (String) value;
+        }
+        Object tags = object.get("tags");
+        if (tags != null && !(tags instanceof List)) {
+            errors.add(new RowError(line, "[ERROR] Field tags must be an array"));
+            return null;
+        }
+        List<String> tagList = new ArrayList<>();
+        if (tags != null) {
+            for (Object tag : (List<?>) tags) {
+                if (tag != null && !(tag instanceof String)) {
+                    errors.add(new RowError(line, "[ERROR] Field tags must be an array of strings"));
+                    return null;
+                }
+                tagList.add((String) tag);
+            }
+        }
+        return game(values, tagList, line, errors);
+    }
+
+    //Prices are read as the base currency, a feed in another currency cannot be converted back without loss.
+    //A price or date that cannot be parsed is replaced by a valid stand-in, so the other fields are still checked.
+    private static DigitalGame game(String[] values, List<String> tags, long line, List<RowError> errors) {
+        int before = errors.size();
+        String currency = values[CURRENCY];
+        if (currency != null && !currency.isEmpty() && !currency.equals(ExchangeRates.BASE_CURRENCY)) {
+            errors.add(new RowError(line, "[ERROR] Prices must be given in " + ExchangeRates.BASE_CURRENCY));
+        }
+        String price = values[PRICE];
+        long cents = price == null || price.isEmpty() ? 0 : Prices.parseCents(price);
+        if (cents == Prices.INVALID) {
+            errors.add(new RowError(line, "[ERROR] Invalid price"));
+            cents = 1;
+        }
+        String date = values[RELEASE_DATE];
+        LocalDate releaseDate = date == null || date.isEmpty() ? null : parseDate(date);
+        if (releaseDate == null && date != null && !date.isEmpty()) {
+            errors.add(new RowError(line, "[ERROR] Invalid release date"));
+            releaseDate = LocalDate.EPOCH;
+        }
+
+        ValidationResult result = DigitalGame.validate(values[TITLE], values[PUBLISHER], values[DESCRIPTION], cents, releaseDate, tags, values[NOTE]);
+        for (ValidationResult.FieldError error : result.getErrors()) {
+            errors.add(new RowError(line, error.message()));
+        }
+        if (errors.size() > before) {
+            return null;
+        }
+        return DigitalGame.restore(values[TITLE], values[PUBLISHER], values[DESCRIPTION], cents, releaseDate, tags, values[NOTE]);
+    }
+
+    //ISO yyyy-MM-dd, null for anything else, without LocalDate.parse and the exception it throws on bad input
+    static LocalDate parseDate(String text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    //Unquoted fields are cut out with substring, only quoted ones are copied character by character
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>(COLUMNS.length + 1);
+        int length = record.length();
+        int i = 0;
+        while (true) {
+            if (i < length && record.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i == length) {
+                        throw new IllegalArgumentException("[ERROR] Unterminated quoted field");
+                    }
+                    char c = record.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && record.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && record.charAt(i) != ',') {
+                    throw new IllegalArgumentException("[ERROR] Unexpected character after quoted field");
+                }
+                fields.add(field.toString());
+            } else {
+                int end = record.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields.add(record.substring(i, end));
+                i = end;
+            }
+            if (i == length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static int count(String text, char c) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Records of one stage-two task with their first line numbers, and what validating them produced
+    private static class Chunk {
+        private final String[] records = new String[CHUNK_ROWS];
+        private final long[] lines = new long[CHUNK_ROWS];
+        private int size = 0;
+        private final List<DigitalGame> games = new ArrayList<>(CHUNK_ROWS);
+        private final List<RowError> errors = new ArrayList<>();
+
+        void add(long line, String record) {
+            lines[size] = line;
+            records[size++] = record;
+        }
+
+        //Only a record the parsers cannot read at all still ends in an exception
+        void validate(CatalogRenderer.Format format, int[] columns) {
+            for (int i = 0; i < size; i++) {
+                try {
+                    DigitalGame game = format == CatalogRenderer.Format.CSV ? csvRow(records[i], columns, lines[i], errors) : jsonRow(records[i], lines[i], errors);
+                    if (game != null) {
+                        games.add(game);
+                    }
+                } catch (IllegalArgumentException e) {
+                    errors.add(new RowError(lines[i], e.getMessage()));
+                }
+                records[i] = null;
+            }
+        }
+    }
+
+    //Flat JSON objects as written by CatalogRenderer: string, number and null values plus arrays of them.
+    //Numbers are kept as their text, so prices go through the same parsing as in CSV feeds.
+    private static class JsonLine {
+        private final String text;
+        private int position = 0;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> object = new HashMap<>();
+            expect('{');
+            if (!consume('}')) {
+                do {
+                    String key = string();
+                    expect(':');
+                    object.put(key, value());
+                } while (consume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error();
+            }
+            return object;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (position == text.length()) {
+                throw error();
+            }
+            char c = text.charAt(position);
+            if (c == '"') {
+                return string();
+            }
+            if (c == '[') {
+                position++;
+                List<Object> values = new ArrayList<>();
+                if (!consume(']')) {
+                    do {
+                        values.add(value());
+                    } while (consume(','));
+                    expect(']');
+                }
+                return values;
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            while (position < text.length() && "+-.eE0123456789".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error();
+            }
+            return text.substring(start, position);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (position == text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error();
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text, position, position + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        position += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+            }
+            throw error();
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error();
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("[ERROR] Invalid JSON at column " + (position + 1));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+//Writes games into one reusable buffer and hands it to the output in large chunks.
+//An instance keeps its buffer between calls and is meant to be used by one thread at a time.
+public class CatalogRenderer {
+    //Attributes
+    public enum Format {TEXT, CSV, JSONL}
+
+    static final String CSV_HEADER = "title,publisher,description,price,currency,releaseDate,ageMonths,tags,note\n";
+    private static final int FLUSH_SIZE = 64 * 1024;
+    private static volatile Today today = Today.of(System.currentTimeMillis());
+
+    private final Format format;
+    private final String currency;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 4 * 1024);
+    private CharsetEncoder encoder;
+    private ByteBuffer bytes;
+
+    public CatalogRenderer(Format format, String currency) {
+        if (format == null) {
+            throw new IllegalArgumentException("[ERROR] Format cannot be null");
+        }
+        if (!ExchangeRates.isCurrencyCode(currency)) {
+            throw new IllegalArgumentException("[ERROR] Invalid currency");
+        }
+        this.format = format;
+        this.currency = currency;
+    }
+
+    public void render(Iterable<DigitalGame> games, Appendable out) throws IOException {
+        ExchangeRates.CurrencyView view = ExchangeRates.view(currency);
+        char separator = decimalSeparator();
+        buffer.setLength(0);
+        if (format == Format.CSV) {
+            buffer.append(CSV_HEADER);
+        }
+        for (DigitalGame game : games) {
+            append(game, view, separator);
+            if (buffer.length() >= FLUSH_SIZE) {
+                out.append(buffer);
+                buffer.setLength(0);
+            }
+        }
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+    //UTF-8 output straight into the channel, the bytes buffer is reused like the characters one
+    public void render(Iterable<DigitalGame> games, WritableByteChannel out) throws IOException {
+        if (encoder == null) {
+            encoder = StandardCharsets.UTF_8.newEncoder();
+            bytes = ByteBuffer.allocateDirect(FLUSH_SIZE);
+        }
+        ExchangeRates.CurrencyView view = ExchangeRates.view(currency);
+        char separator = decimalSeparator();
+        encoder.reset();
+        buffer.setLength(0);
+        if (format == Format.CSV) {
+            buffer.append(CSV_HEADER);
+        }
+        for (DigitalGame game : games) {
+            append(game, view, separator);
+            if (buffer.length() >= FLUSH_SIZE) {
+                encode(out, false);
+            }
+        }
+        encode(out, true);
+    }
+
+    private void encode(WritableByteChannel out, boolean endOfInput) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            drain(out);
+        }
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                drain(out);
+            }
+            drain(out);
+        }
+        //A trailing high surrogate stays unread until the next chunk completes it
+        buffer.delete(0, chars.position());
+    }
+
+    private void drain(WritableByteChannel out) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void append(DigitalGame game, ExchangeRates.CurrencyView view, char separator) {
+        switch (format) {
+            case TEXT -> appendText(buffer, game, view, separator).append('\n');
+            case CSV -> appendCsv(buffer, game, view);
+            case JSONL -> appendJson(buffer, game, view);
+        }
+    }
+
+    //Same layout as DigitalGame.toString(), the separator follows the default locale like String.format did
+    static StringBuilder appendText(StringBuilder sb, DigitalGame game, ExchangeRates.CurrencyView view, char separator) {
+        sb.append("Title: ").append(game.getTitle())
+                .append("\nPublisher: ").append(game.getPublisher())
+                .append("\nDescription: ").append(game.getDescription())
+                .append("\nPrice: ");
+        appendPrice(sb, view.convertCents(game.getPriceCents()), separator).append(' ').append(view.code());
+        sb.append("\nRelease Date: ");
+        appendDate(sb, game.getReleaseDate());
+        sb.append("\nAge: ").append(monthsSince(game.getReleaseDate())).append(" months old")
+                .append("\nTags: [");
+        int[] tags = game.getTagIds();
+        for (int i = 0; i < tags.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(TagDictionary.name(tags[i]));
+        }
+        sb.append(']');
+        if (game.getPublisherNote() != null) {
+            sb.append("\nNote: ").append(game.getPublisherNote());
+        }
+        return sb.append('\n');
+    }
+
+    static void appendCsv(StringBuilder sb, DigitalGame game, ExchangeRates.CurrencyView view) {
+        appendCsvField(sb, game.getTitle()).append(',');
+        appendCsvField(sb, game.getPublisher()).append(',');
+        appendCsvField(sb, game.getDescription()).append(',');
+        appendPrice(sb, view.convertCents(game.getPriceCents()), '.').append(',').append(view.code()).append(',');
+        appendDate(sb, game.getReleaseDate()).append(',');
+        sb.append(monthsSince(game.getReleaseDate())).append(',');
+        //Tags are joined with ';' inside one field, quoted when a tag needs it
+        int start = sb.length();
+        int[] tags = game.getTagIds();
+        for (int i = 0; i < tags.length; i++) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append(TagDictionary.name(tags[i]));
+        }
+        quoteCsvTail(sb, start);
+        sb.append(',');
+        if (game.getPublisherNote() != null) {
+            appendCsvField(sb, game.getPublisherNote());
+        }
+        sb.append('\n');
+    }
+
+    static void appendJson(StringBuilder sb, DigitalGame game, ExchangeRates.CurrencyView view) {
+        appendJsonFields(sb.append('{'), game, view);
+    }
+
+    //The fields of appendJson after the opening brace, callers can put their own fields in front
+    static void appendJsonFields(StringBuilder sb, DigitalGame game, ExchangeRates.CurrencyView view) {
+        sb.append("\"title\":");
+        appendJsonString(sb, game.getTitle());
+        sb.append(",\"publisher\":");
+        appendJsonString(sb, game.getPublisher());
+        sb.append(",\"description\":");
+        appendJsonString(sb, game.getDescription());
+        sb.append(",\"price\":");
+        appendPrice(sb, view.convertCents(game.getPriceCents()), '.');
+        sb.append(",\"currency\":\"").append(view.code()).append("\",\"releaseDate\":\"");
+        appendDate(sb, game.getReleaseDate());
+        sb.append("\",\"ageMonths\":").append(monthsSince(game.getReleaseDate())).append(",\"tags\":[");
+        int[] tags = game.getTagIds();
+        for (int i = 0; i < tags.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendJsonString(sb, TagDictionary.name(tags[i]));
+        }
+        sb.append("],\"note\":");
+        if (game.getPublisherNote() == null) {
+            sb.append("null");
+        } else {
+            appendJsonString(sb, game.getPublisherNote());
+        }
+        sb.append("}\n");
+    }
+
+    //Cents as units, separator and exactly two decimals, without going through a Formatter
+    static StringBuilder appendPrice(StringBuilder sb, long cents, char separator) {
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        sb.append(cents / 100).append(separator);
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    //ISO-8601 like LocalDate.toString(), written digit by digit for the four digit years a catalog has
+    static StringBuilder appendDate(StringBuilder sb, LocalDate date) {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            return sb.append(date);
+        }
+        sb.append(year).append('-');
+        appendTwoDigits(sb, date.getMonthValue()).append('-');
+        return appendTwoDigits(sb, date.getDayOfMonth());
+    }
+
+    //Whole months between the date and today, the same value as Period.between(date, LocalDate.now()).toTotalMonths()
+    static long monthsSince(LocalDate date) {
+        Today current = today();
+        long months = current.prolepticMonth - (date.getYear() * 12L + date.getMonthValue() - 1);
+        int days = current.dayOfMonth - date.getDayOfMonth();
+        if (months > 0 && days < 0) {
+            months--;
+        } else if (months < 0 && days > 0) {
+            months++;
+        }
+        return months;
+    }
+
+    //Today's date in the default zone as an epoch day, from the same cache as monthsSince
+    static long todayEpochDay() {
+        return today().epochDay;
+    }
+
+    private static Today today() {
+        long now = System.currentTimeMillis();
+        Today current = today;
+        if (now >= current.validUntil || now < current.validFrom) {
+            current = Today.of(now);
+            today = current;
+        }
+        return current;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder sb, String value) {
+        int start = sb.length();
+        sb.append(value);
+        quoteCsvTail(sb, start);
+        return sb;
+    }
+
+    //Quotes what was appended from start on when it holds a separator, quote or line break
+    private static void quoteCsvTail(StringBuilder sb, int start) {
+        int quotes = 0;
+        boolean special = false;
+        for (int i = start; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            if (c == '"') {
+                quotes++;
+            } else if (c == ',' || c == '\n' || c == '\r') {
+                special = true;
+            }
+        }
+        if (!special && quotes == 0) {
+            return;
+        }
+        if (quotes > 0) {
+            for (int i = sb.length() - 1; i >= start; i--) {
+                if (sb.charAt(i) == '"') {
+                    sb.insert(i, '"');
+                }
+            }
+        }
+        sb.insert(start, '"').append('"');
+    }
+
+    static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static char decimalSeparator() {
+        return DecimalFormatSymbols.getInstance().getDecimalSeparator();
+    }
+
+    //Today's date in the default zone and the span of wall clock time it stays valid for
+    private record Today(long epochDay, long prolepticMonth, int dayOfMonth, long validFrom, long validUntil) {
+        static Today of(long millis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+            long from = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            long until = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new Today(date.toEpochDay(), date.getYear() * 12L + date.getMonthValue() - 1, date.getDayOfMonth(), from, until);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Local HTTP front end of the catalog. Every exchange runs on its own virtual thread, so a request waiting for the
+//extent lock or the disk only parks itself. Responses are JSON Lines in the CatalogRenderer layout plus the game id.
+//  GET    /games[?tag=T | ?tags=A AND B][&offset=N&limit=N]   GET /games/{id}   POST /games (JSON Lines body)
+//  PUT    /games/{id}/tags/{tag}   DELETE /games/{id}/tags/{tag}
+//  GET    /search?q=words[&limit=N]   POST /save   GET /metrics
+public class CatalogServer implements Closeable {
+    //Attributes
+    static final int DEFAULT_LIMIT = 100;
+    private static final Metrics.Histogram requestLatency = Metrics.histogram("server.request");
+    private static final Metrics.Counter failedRequests = Metrics.counter("server.failures");
+
+    private final Catalog catalog;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Path extentPath;
+    private final Lock saveLock = new ReentrantLock();
+
+    private interface Handler {
+        void handle(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException;
+    }
+
+    //Statuses for requests that cannot be served, the message becomes the response body
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private CatalogServer(Catalog catalog, InetSocketAddress address, int backlog, Path extentPath) throws IOException {
+        this.catalog = catalog;
+        this.extentPath = extentPath;
+        this.server = HttpServer.create(address, backlog);
+        server.setExecutor(executor);
+        server.createContext("/games", exchange -> serve(exchange, this::games));
+        server.createContext("/search", exchange -> serve(exchange, this::search));
+        server.createContext("/save", exchange -> serve(exchange, this::save));
+        server.createContext("/metrics", exchange -> serve(exchange, this::metrics));
+    }
+
+    public static CatalogServer start(InetSocketAddress address, int backlog, Path extentPath) throws IOException {
+        return start(Catalog.getDefault(), address, backlog, extentPath);
+    }
+
+    //Port 0 picks a free port, see getPort. Save requests write the catalog to extentPath.
+    public static CatalogServer start(Catalog catalog, InetSocketAddress address, int backlog, Path extentPath) throws IOException {
+        CatalogServer catalogServer = new CatalogServer(catalog, address, backlog, extentPath);
+        catalogServer.server.start();
+        return catalogServer;
+    }
+
+    //Usage: CatalogServer [port, default 8080] [extent file, default gamesProperties]
+    public static void main(String[] args) throws IOException {
+        //The JDK server closes keep-alive connections beyond this many idle ones, which would make clients reconnect
+        System.setProperty("sun.net.httpserver.maxIdleConnections", System.getProperty("sun.net.httpserver.maxIdleConnections", "20000"));
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path path = Path.of(args.length > 1 ? args[1] : "gamesProperties");
+        //Without the file the server starts with an empty catalog, the first save creates it
+        if (!Files.exists(path)) {
+            System.out.println("[WARNING] " + path + " does not exist, starting with an empty catalog");
+        } else if (SnapshotFile.isSnapshotFile(path)) {
+            DigitalGame.loadSnapshot(path);
+        } else if (ExtentFile.isExtentFile(path)) {
+            DigitalGame.loadExtent(path);
+        }
+        Metrics.registerMBean();
+        CatalogServer catalogServer = start(new InetSocketAddress("localhost", port), 16_384, path);
+        System.out.println("== Serving " + DigitalGame.getAllGames().size() + " games on http://localhost:" + catalogServer.getPort() + " ==");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void serve(HttpExchange exchange, Handler handler) {
+        long start = Metrics.start();
+        try (exchange) {
+            try {
+                String context = exchange.getHttpContext().getPath();
+                String rest = exchange.getRequestURI().getRawPath().substring(context.length());
+                String[] path = rest.isEmpty() || rest.equals("/") ? new String[0] : rest.substring(1).split("/");
+                for (int i = 0; i < path.length; i++) {
+                    path[i] = URLDecoder.decode(path[i], StandardCharsets.UTF_8);
+                }
+                handler.handle(exchange, path, query(exchange.getRequestURI().getRawQuery()));
+            } catch (RequestException e) {
+                failedRequests.increment();
+                respond(exchange, e.status, "text/plain", e.getMessage() + "\n");
+            } catch (IllegalArgumentException e) {
+                failedRequests.increment();
+                respond(exchange, 400, "text/plain", e.getMessage() + "\n");
+            }
+        } catch (IOException e) {
+            failedRequests.increment();
+        }
+        requestLatency.recordSince(start);
+    }
+
+    private void games(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0 && method.equals("GET")) {
+            List<DigitalGame> games;
+            if (query.containsKey("tag")) {
+                games = catalog.findWithSimilarTag(query.get("tag"));
+            } else if (query.containsKey("tags")) {
+                games = catalog.findWithTags(query.get("tags"));
+            } else {
+                games = catalog.getAllGames();
+            }
+            int offset = Math.min(number(query, "offset", 0), games.size());
+            int limit = number(query, "limit", DEFAULT_LIMIT);
+            respond(exchange, 200, games.subList(offset, offset + Math.min(limit, games.size() - offset)));
+        } else if (path.length == 0 && method.equals("POST")) {
+            CatalogImporter.Report report;
+            try (InputStreamReader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                report = new CatalogImporter(CatalogRenderer.Format.JSONL, catalog).importFrom(body);
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"imported\":").append(report.imported()).append(",\"errors\":[");
+            for (int i = 0; i < report.errors().size(); i++) {
+                CatalogImporter.RowError error = report.errors().get(i);
+                sb.append(i > 0 ? "," : "").append("{\"line\":").append(error.line()).append(",\"message\":");
+                CatalogRenderer.appendJsonString(sb, error.message());
+                sb.append('}');
+            }
+            sb.append("]}\n");
+            respond(exchange, report.imported() == 0 && !report.errors().isEmpty() ? 400 : 201, "application/json", sb.toString());
+        } else if (path.length == 1 && method.equals("GET")) {
+            respond(exchange, 200, List.of(game(path[0])));
+        } else if (path.length == 3 && path[1].equals("tags") && method.equals("PUT")) {
+            DigitalGame game = game(path[0]);
+            game.addThemeTag(path[2]);
+            respond(exchange, 200, List.of(game));
+        } else if (path.length == 3 && path[1].equals("tags") && method.equals("DELETE")) {
+            DigitalGame game = game(path[0]);
+            game.removeThemeTag(path[2]);
+            respond(exchange, 200, List.of(game));
+        } else {
+            throw new RequestException(404, "[ERROR] Unknown request " + method + " " + exchange.getRequestURI());
+        }
+    }
+
+    private void search(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        requireMethod(exchange, "GET");
+        respond(exchange, 200, catalog.search(query.get("q"), number(query, "limit", 10)));
+    }
+
+    //Saves are serialized, two of them writing the same file at once would corrupt it.
+    //The file keeps the format it was saved in, so an extent file stays memory-mappable.
+    private void save(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        requireMethod(exchange, "POST");
+        int games;
+        saveLock.lock();
+        try {
+            if (Files.exists(extentPath) && ExtentFile.isExtentFile(extentPath)) {
+                catalog.saveExtent(extentPath);
+            } else {
+                catalog.saveSnapshot(extentPath);
+            }
+            games = catalog.size();
+        } finally {
+            saveLock.unlock();
+        }
+        respond(exchange, 200, "application/json", "{\"saved\":" + games + "}\n");
+    }
+
+    private void metrics(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        requireMethod(exchange, "GET");
+        respond(exchange, 200, "text/plain", Metrics.dump());
+    }
+
+    private DigitalGame game(String id) {
+        List<DigitalGame> games = catalog.getAllGames();
+        int ordinal;
+        try {
+            ordinal = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new RequestException(404, "[ERROR] Game " + id + " does not exist");
+        }
+        if (ordinal < 0 || ordinal >= games.size()) {
+            throw new RequestException(404, "[ERROR] Game " + id + " does not exist");
+        }
+        return games.get(ordinal);
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new RequestException(405, "[ERROR] Only " + method + " is allowed");
+        }
+    }
+
+    private static int number(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below
+        }
+        throw new IllegalArgumentException("[ERROR] Invalid " + name);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    //The games are a snapshot of the extent or of a query result. Each one is rendered under the lock its setters
+    //hold, so a record never mixes values from before and after a concurrent change.
+    private void respond(HttpExchange exchange, int status, List<DigitalGame> games) throws IOException {
+        ExchangeRates.CurrencyView view = ExchangeRates.view(catalog.getCurrency());
+        StringBuilder sb = new StringBuilder(256 * games.size());
+        for (DigitalGame game : games) {
+            sb.append("{\"id\":").append(game.getOrdinal()).append(',');
+            Lock lock = catalog.lockOf(game);
+            lock.lock();
+            try {
+                CatalogRenderer.appendJsonFields(sb, game, view);
+            } finally {
+                lock.unlock();
+            }
+        }
+        respond(exchange, status, "application/x-ndjson", sb.toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
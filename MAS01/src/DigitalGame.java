@@ -3,64 +3,262 @@ package org.example;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Currency;
+import java.util.Arrays;
 import java.util.List;
 
 public class DigitalGame implements Serializable {
     //Attributes
-    private static List<DigitalGame> extent = new ArrayList<>();
-    private String title;
-    private String publisher;
-    private String description;
-    private Double price;
-    private LocalDate releaseDate;
-    private List<String> themeTags = new ArrayList<>();
-    private String publisherNote = null;
-    private static String defaultCurrency = "EUR";
+    private static final long serialVersionUID = 3361086552144305265L;
+    //Serialized form of the first version of the class, older files keep loading through loadExtent(ObjectInputStream)
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("title", String.class),
+            new ObjectStreamField("publisher", String.class),
+            new ObjectStreamField("description", String.class),
+            new ObjectStreamField("price", Double.class),
+            new ObjectStreamField("releaseDate", LocalDate.class),
+            new ObjectStreamField("themeTags", List.class),
+            new ObjectStreamField("publisherNote", String.class)
+    };
+    private volatile String title;
+    private volatile String publisher;
+    private volatile String description;
+    private volatile long priceCents;
+    private volatile LocalDate releaseDate;
+    //Tags are stored as interned TagDictionary ids in the order they were added
+    private volatile int[] tagIds = new int[0];
+    private transient volatile long[] tagBits = new long[0];
+    private volatile String publisherNote = null;
+    private transient volatile Catalog catalog;
+    private transient volatile int ordinal;
+    private transient volatile int generation;
+    private static final Metrics.Counter validations = Metrics.counter("validation.checks");
+
     public Long gameAge(){
-        return Period.between(releaseDate, LocalDate.now()).toTotalMonths();
+        return CatalogRenderer.monthsSince(releaseDate);
     }
 
     public DigitalGame(String title, String publisher, String description, Double price, LocalDate releaseDate, List<String> themeTags) {
-        setTitle(title);
-        setPublisher(publisher);
-        setDescription(description);
-        setPrice(price);
-        setReleaseDate(releaseDate);
-        setThemeTags(themeTags);
-
-        extent.add(this);
+        this(title, publisher, description, price, releaseDate, themeTags, null);
     }
 
     public DigitalGame(String title, String publisher, String description, Double price, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
-        this(title, publisher, description, price, releaseDate, themeTags);
-        setPublisherNote(publisherNote);
+        this(Catalog.getDefault(), title, publisher, description, price, releaseDate, themeTags, publisherNote);
+    }
+
+    //Every field is checked before the game is registered, so a rejected game never reaches the extent
+    public DigitalGame(Catalog catalog, String title, String publisher, String description, Double price, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("[ERROR] Catalog cannot be null");
+        }
+        validate(title, publisher, description, price, releaseDate, themeTags, publisherNote).throwIfInvalid();
+        //Checked above, the setters would check every field again
+        this.title = title;
+        this.publisher = publisher;
+        this.description = description;
+        this.priceCents = Prices.toCents(price);
+        this.releaseDate = releaseDate;
+        assignTagIds(internAll(themeTags));
+        this.publisherNote = publisherNote == null || publisherNote.isEmpty() ? null : publisherNote;
+        catalog.add(this);
+    }
+
+    private DigitalGame() {
     }
 
+    //Builds a game read back from storage without adding it to the extent
+    static DigitalGame restore(String title, String publisher, String description, long priceCents, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
+        DigitalGame game = new DigitalGame();
+        game.setTitle(title);
+        game.setPublisher(publisher);
+        game.setDescription(description);
+        game.setPriceCents(priceCents);
+        game.setReleaseDate(releaseDate);
+        game.setThemeTags(themeTags);
+        game.setPublisherNote(publisherNote);
+        return game;
+    }
+
+    //Same for records that already carry dictionary ids, the tag strings are never materialized per game
+    static DigitalGame restore(String title, String publisher, String description, long priceCents, LocalDate releaseDate, int[] tagIds, String publisherNote) {
+        if (tagIds.length == 0) {
+            throw new IllegalArgumentException("[ERROR] Theme tags cannot be null or empty");
+        }
+        DigitalGame game = new DigitalGame();
+        game.setTitle(title);
+        game.setPublisher(publisher);
+        game.setDescription(description);
+        game.setPriceCents(priceCents);
+        game.setReleaseDate(releaseDate);
+        game.assignTagIds(distinct(tagIds));
+        game.setPublisherNote(publisherNote);
+        return game;
+    }
+
+    //The static methods below work on the default catalog, see Catalog
     public static void saveExtent(ObjectOutputStream oos) throws IOException {
-        oos.writeObject(extent);
+        Catalog.getDefault().saveExtent(oos);
     }
 
-    @SuppressWarnings("unchecked")
     public static void loadExtent(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-        extent = (List<DigitalGame>) ois.readObject();
+        Catalog.getDefault().loadExtent(ois);
+    }
+
+    public static void saveExtent(Path path) throws IOException {
+        Catalog.getDefault().saveExtent(path);
+    }
+
+    public static void loadExtent(Path path) throws IOException {
+        Catalog.getDefault().loadExtent(path);
+    }
+
+    public static void saveSnapshot(Path path) throws IOException {
+        Catalog.getDefault().saveSnapshot(path);
+    }
+
+    public static void loadSnapshot(Path path) throws IOException {
+        Catalog.getDefault().loadSnapshot(path);
+    }
+
+    public static void openExtent(Path path) throws IOException {
+        Catalog.getDefault().openExtent(path);
+    }
+
+    static void appendAll(List<DigitalGame> games) {
+        Catalog.getDefault().appendAll(games);
+    }
+
+    public static void attachJournal(ExtentJournal extentJournal) {
+        Catalog.getDefault().attachJournal(extentJournal);
+    }
+
+    public static void detachJournal() {
+        Catalog.getDefault().detachJournal();
     }
 
     public static List<DigitalGame> findWithSimilarTag(String tag) {
-        if (tag == null || tag.isBlank()) {
-            return Collections.emptyList();
-        }
-        return Collections.unmodifiableList(extent).stream().filter(game -> game.getThemeTags().contains(tag)).toList();
+        return Catalog.getDefault().findWithSimilarTag(tag);
+    }
+
+    public static List<DigitalGame> findWithAllTags(String... tags) {
+        return Catalog.getDefault().findWithAllTags(tags);
+    }
+
+    public static List<DigitalGame> findWithAnyTag(String... tags) {
+        return Catalog.getDefault().findWithAnyTag(tags);
+    }
+
+    public static List<DigitalGame> findWithTags(String query) {
+        return Catalog.getDefault().findWithTags(query);
+    }
+
+    static QueryCache.Stats queryCacheStats() {
+        return Catalog.getDefault().queryCacheStats();
+    }
+
+    public static List<DigitalGame> findWithPriceBetween(Double min, Double max) {
+        return Catalog.getDefault().findWithPriceBetween(min, max);
+    }
+
+    public static List<DigitalGame> findReleasedBetween(LocalDate from, LocalDate to) {
+        return Catalog.getDefault().findReleasedBetween(from, to);
+    }
+
+    public static List<DigitalGame> findByPublisher(String publisher) {
+        return Catalog.getDefault().findByPublisher(publisher);
+    }
+
+    public static List<DigitalGame> findSimilarGames(DigitalGame game, int limit) {
+        return Catalog.getDefault().findSimilarGames(game, limit);
+    }
+
+    public static List<DigitalGame> search(String query, int limit) {
+        return Catalog.getDefault().search(query, limit);
+    }
+
+    public static int applyDiscount(String tag, int percent) {
+        return Catalog.getDefault().applyDiscount(tag, percent);
+    }
+
+    public static long[] getPricesInCents() {
+        return Catalog.getDefault().getPricesInCents();
+    }
+
+    public static long[] getSortedPricesInCents() {
+        return Catalog.getDefault().getSortedPricesInCents();
+    }
+
+    public static long getTotalPriceCents() {
+        return Catalog.getDefault().getTotalPriceCents();
+    }
+
+    public static double getAveragePrice() {
+        return Catalog.getDefault().getAveragePrice();
+    }
+
+    public static void exportExtent(Path path, CatalogRenderer.Format format) throws IOException {
+        Catalog.getDefault().exportExtent(path, format);
     }
 
     public static void show(){
-        for(DigitalGame game : Collections.unmodifiableList(extent)){
-            System.out.println(game);
+        Catalog.getDefault().show();
+    }
+
+    public static List<DigitalGame> getAllGames() {
+        return Catalog.getDefault().getAllGames();
+    }
+
+    public static void setCurrency(String currency){
+        Catalog.getDefault().setCurrency(currency);
+    }
+
+    void register(Catalog catalog, int ordinal, int generation) {
+        this.catalog = catalog;
+        this.ordinal = ordinal;
+        this.generation = generation;
+    }
+
+    //A game belongs to the catalog that registered it last, until that catalog replaces its extent
+    private boolean isRegistered() {
+        Catalog owner = catalog;
+        return owner != null && owner.isCurrent(generation);
+    }
+
+    int getOrdinal() {
+        return ordinal;
+    }
+
+    //Null for games built with restore that were never added to a catalog
+    Catalog getCatalog() {
+        return catalog;
+    }
+
+    private void journal(int operation, String value) {
+        if (isRegistered()) {
+            catalog.journal(this, operation, value);
+        }
+    }
+
+    private void journal(int operation, long value) {
+        if (isRegistered()) {
+            catalog.journal(this, operation, value);
+        }
+    }
+
+    //Changes of one game are serialized on its catalog's lock for it, on the game itself while it belongs to none
+    private void update(Runnable change) {
+        Catalog owner = catalog;
+        if (owner == null) {
+            synchronized (this) {
+                change.run();
+            }
+        } else {
+            owner.update(this, change);
         }
     }
 
@@ -77,7 +275,16 @@ public class DigitalGame implements Serializable {
     }
 
     public Double getPrice() {
-        return price;
+        return Prices.toPrice(priceCents);
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    //Price converted with the loaded exchange rates, EUR when no rate is known for the currency
+    public Double getPrice(String currency) {
+        return Prices.toPrice(ExchangeRates.view(currency).convertCents(priceCents));
     }
 
     public LocalDate getReleaseDate() {
@@ -85,132 +292,320 @@ public class DigitalGame implements Serializable {
     }
 
     public List<String> getThemeTags() {
-        return Collections.unmodifiableList(themeTags);
+        int[] ids = tagIds;
+        String[] tags = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            tags[i] = TagDictionary.name(ids[i]);
+        }
+        return List.of(tags);
+    }
+
+    //The array is shared, it is replaced on every change and must not be modified
+    int[] getTagIds() {
+        return tagIds;
+    }
+
+    boolean hasTag(int tagId) {
+        for (int id : tagIds) {
+            if (id == tagId) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String getPublisherNote() {
         return publisherNote;
     }
 
+    //Currency of the game's catalog, of the default catalog while the game belongs to none
     public String getDefaultCurrency(){
-        return defaultCurrency;
+        Catalog owner = catalog;
+        return (owner != null ? owner : Catalog.getDefault()).getCurrency();
     }
 
-    public static List<DigitalGame> getAllGames() {
-        return Collections.unmodifiableList(extent);
+    //Checks every field like the constructor does and returns what is wrong instead of throwing at the first problem
+    public static ValidationResult validate(String title, String publisher, String description, Double price, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
+        validations.increment();
+        return ValidationResult.VALID
+                .add("title", checkTitle(title))
+                .add("publisher", checkPublisher(publisher))
+                .add("description", checkDescription(description))
+                .add("price", checkPrice(price))
+                .add("releaseDate", checkReleaseDate(releaseDate))
+                .add("themeTags", checkThemeTags(themeTags))
+                .add("publisherNote", checkPublisherNote(publisherNote));
     }
 
+    //Same for prices that are already in cents, which is what restore takes
+    static ValidationResult validate(String title, String publisher, String description, long priceCents, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
+        validations.increment();
+        return ValidationResult.VALID
+                .add("title", checkTitle(title))
+                .add("publisher", checkPublisher(publisher))
+                .add("description", checkDescription(description))
+                .add("price", checkPriceCents(priceCents))
+                .add("releaseDate", checkReleaseDate(releaseDate))
+                .add("themeTags", checkThemeTags(themeTags))
+                .add("publisherNote", checkPublisherNote(publisherNote));
+    }
 
-    public void setTitle(String title) throws IllegalArgumentException {
-        if (title == null || title.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Title cannot be null or empty");
+    //The checks return the error message or null, so they can be used without an exception being created
+    private static String checkTitle(String title) {
+        return title == null || title.isBlank() ? "[ERROR] Title cannot be null or empty" : null;
+    }
+
+    private static String checkPublisher(String publisher) {
+        return publisher == null || publisher.isBlank() ? "[ERROR] Publisher cannot be null or empty" : null;
+    }
+
+    private static String checkDescription(String description) {
+        return description == null || description.isBlank() ? "[ERROR] Description cannot be null or empty" : null;
+    }
+
+    private static String checkPrice(Double price) {
+        if (price == null || price <= 0) {
+            return "[ERROR] Price cannot be null or less than zero";
         }
+        return Prices.toCents(price) == Prices.INVALID ? "[ERROR] Price cannot have more than two decimal places" : null;
+    }
 
-        this.title = title;
+    private static String checkPriceCents(long priceCents) {
+        if (priceCents > Prices.MAX_CENTS) {
+            return "[ERROR] Price is too large";
+        }
+        return priceCents <= 0 ? "[ERROR] Price cannot be null or less than zero" : null;
     }
 
-    public void setPublisher(String publisher) {
-        if (publisher == null || publisher.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Publisher cannot be null or empty");
+    private static String checkReleaseDate(LocalDate releaseDate) {
+        return releaseDate == null || releaseDate.toEpochDay() > CatalogRenderer.todayEpochDay() ? "[ERROR] Date cannot be null" : null;
+    }
+
+    private static String checkThemeTags(List<String> themeTags) {
+        if (themeTags == null || themeTags.isEmpty()) {
+            return "[ERROR] Theme tags cannot be null or empty";
         }
+        for (int i = 0; i < themeTags.size(); i++) {
+            String error = checkThemeTag(themeTags.get(i));
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
 
-        this.publisher = publisher;
+    private static String checkThemeTag(String tag) {
+        return tag == null || tag.isBlank() ? "[ERROR] Theme tag cannot be null or empty" : null;
     }
 
-    public void setDescription(String description) {
-        if (description == null || description.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Description cannot be null or empty");
+    private static String checkPublisherNote(String publisherNote) {
+        return publisherNote != null && !publisherNote.isEmpty() && publisherNote.isBlank() ? "[ERROR] Publisher note cannot be set as whitespace" : null;
+    }
+
+    private static void require(String field, String error) {
+        if (error != null) {
+            ValidationResult.countFailure(field);
+            throw new IllegalArgumentException(error);
         }
+    }
 
-        this.description = description;
+    public void setTitle(String title) throws IllegalArgumentException {
+        require("title", checkTitle(title));
+
+        update(() -> {
+            this.title = title;
+            if (isRegistered()) {
+                catalog.textChanged(this);
+            }
+            journal(ExtentJournal.TITLE, title);
+        });
+    }
+
+    public void setPublisher(String publisher) {
+        require("publisher", checkPublisher(publisher));
+
+        update(() -> {
+            String old = this.publisher;
+            this.publisher = publisher;
+            if (isRegistered()) {
+                catalog.publisherChanged(this, old, publisher);
+            }
+            journal(ExtentJournal.PUBLISHER, publisher);
+        });
+    }
+
+    public void setDescription(String description) {
+        require("description", checkDescription(description));
+
+        update(() -> {
+            this.description = description;
+            if (isRegistered()) {
+                catalog.textChanged(this);
+            }
+            journal(ExtentJournal.DESCRIPTION, description);
+        });
     }
 
     public void setPrice(Double price) {
-        if (price == null || price <= 0) {
-            throw new IllegalArgumentException("[ERROR] Price cannot be null or less than zero");
-        }
-        if(Math.round(price * 100) != price * 100){
-            throw new IllegalArgumentException("[ERROR] Price cannot have more than two decimal places");
-        }
-        this.price = price;
+        require("price", checkPrice(price));
+        setPriceCents(Prices.toCents(price));
+    }
+
+    public void setPriceCents(long priceCents) {
+        require("price", checkPriceCents(priceCents));
+        update(() -> {
+            long old = this.priceCents;
+            this.priceCents = priceCents;
+            if (isRegistered()) {
+                catalog.priceChanged(this, old, priceCents);
+            }
+            journal(ExtentJournal.PRICE, priceCents);
+        });
     }
 
     public void setReleaseDate(LocalDate releaseDate) {
-        if (releaseDate == null || releaseDate.isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("[ERROR] Date cannot be null");
-        }
+        require("releaseDate", checkReleaseDate(releaseDate));
 
-        this.releaseDate = releaseDate;
+        update(() -> {
+            LocalDate old = this.releaseDate;
+            this.releaseDate = releaseDate;
+            if (isRegistered()) {
+                catalog.releaseDateChanged(this, old, releaseDate);
+            }
+            journal(ExtentJournal.RELEASE_DATE, releaseDate.toEpochDay());
+        });
     }
 
     private void setThemeTags(List<String> themeTags) {
-        if (themeTags == null || themeTags.isEmpty()) {
-            throw new IllegalArgumentException("[ERROR] Theme tags cannot be null or empty");
+        require("themeTags", checkThemeTags(themeTags));
+        assignTagIds(internAll(themeTags));
+    }
+
+    //Ids of the trimmed tags, a tag listed twice is kept once
+    private static int[] internAll(List<String> tags) {
+        int[] ids = new int[tags.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = TagDictionary.intern(tags.get(i).trim());
         }
+        return distinct(ids);
+    }
 
-        for (String tag : themeTags) {
-            if (tag == null || tag.isBlank()) {
-                throw new IllegalArgumentException("[ERROR] Theme tag cannot be null or empty");
+    private static int[] distinct(int[] ids) {
+        int count = 0;
+        int[] result = new int[ids.length];
+        outer:
+        for (int id : ids) {
+            for (int i = 0; i < count; i++) {
+                if (result[i] == id) {
+                    continue outer;
+                }
             }
-            this.themeTags.add(tag.trim());
+            result[count++] = id;
         }
+        return count == ids.length ? result : Arrays.copyOf(result, count);
     }
 
-    public void addThemeTag(String tag) {
-        if (tag == null || tag.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Theme tag cannot be null or empty");
-        }
-        if (this.themeTags.contains(tag)) {
+    //The tag bitset is derived from the ids and replaced together with them
+    private void assignTagIds(int[] ids) {
+        this.tagIds = ids;
+        this.tagBits = TagDictionary.bits(ids);
+    }
+
+    long[] getTagBits() {
+        return tagBits;
+    }
+
+    //Tags are stored trimmed, as in internAll
+    public void addThemeTag(String themeTag) {
+        require("themeTags", checkThemeTag(themeTag));
+        String tag = themeTag.trim();
+        if (hasTag(TagDictionary.find(tag))) {
             throw new IllegalArgumentException("[ERROR] Tag already exists");
         }
 
-        this.themeTags.add(tag);
+        update(() -> {
+            int id = TagDictionary.intern(tag);
+            if (hasTag(id)) {
+                throw new IllegalArgumentException("[ERROR] Tag already exists");
+            }
+            int[] ids = Arrays.copyOf(this.tagIds, this.tagIds.length + 1);
+            ids[ids.length - 1] = id;
+            assignTagIds(ids);
+            if (isRegistered()) {
+                catalog.tagAdded(this, id);
+            }
+            journal(ExtentJournal.ADD_TAG, tag);
+        });
     }
 
-    public void removeThemeTag(String tag) {
-        if (tag == null || tag.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Theme tag cannot be null or empty");
-        }
-        if (!this.themeTags.contains(tag)) {
-            throw new IllegalArgumentException("[ERROR] Tag does not exist");
-        }
-        if (this.themeTags.size() == 1) {
-            throw new IllegalArgumentException("[ERROR] At least one theme tag is required");
-        }
+    public void removeThemeTag(String themeTag) {
+        require("themeTags", checkThemeTag(themeTag));
+        String tag = themeTag.trim();
 
-        this.themeTags.remove(themeTags.indexOf(tag));
+        update(() -> {
+            int id = TagDictionary.find(tag);
+            if (!hasTag(id)) {
+                throw new IllegalArgumentException("[ERROR] Tag does not exist");
+            }
+            if (this.tagIds.length == 1) {
+                throw new IllegalArgumentException("[ERROR] At least one theme tag is required");
+            }
+            int[] ids = new int[this.tagIds.length - 1];
+            int next = 0;
+            for (int other : this.tagIds) {
+                if (other != id) {
+                    ids[next++] = other;
+                }
+            }
+            assignTagIds(ids);
+            if (isRegistered()) {
+                catalog.tagRemoved(this, id);
+            }
+            journal(ExtentJournal.REMOVE_TAG, tag);
+        });
     }
 
 
     public void setPublisherNote(String publisherNote) {
-        if (publisherNote == null || publisherNote.isEmpty()) {
-            this.publisherNote = null;
-        } else if (publisherNote.isBlank()) {
-            throw new IllegalArgumentException("[ERROR] Publisher note cannot be set as whitespace");
-        } else {
-            this.publisherNote = publisherNote;
-        }
+        require("publisherNote", checkPublisherNote(publisherNote));
 
+        String note = publisherNote == null || publisherNote.isEmpty() ? null : publisherNote;
+        update(() -> {
+            this.publisherNote = note;
+            if (isRegistered()) {
+                catalog.textChanged(this);
+            }
+            journal(ExtentJournal.PUBLISHER_NOTE, note);
+        });
     }
 
-    public static void setCurrency(String currency){
-        if (Currency.getAvailableCurrencies().stream().noneMatch(c -> c.getCurrencyCode().equals(currency))) {
-            throw new IllegalArgumentException("[ERROR] Invalid currency");
-        }
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        ObjectOutputStream.PutField fields = oos.putFields();
+        fields.put("title", title);
+        fields.put("publisher", publisher);
+        fields.put("description", description);
+        fields.put("price", getPrice());
+        fields.put("releaseDate", releaseDate);
+        fields.put("themeTags", new ArrayList<>(getThemeTags()));
+        fields.put("publisherNote", publisherNote);
+        oos.writeFields();
+    }
 
-        defaultCurrency = currency;
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = ois.readFields();
+        title = (String) fields.get("title", null);
+        publisher = (String) fields.get("publisher", null);
+        description = (String) fields.get("description", null);
+        Double price = (Double) fields.get("price", null);
+        priceCents = price == null ? 0 : Prices.toCents(price);
+        releaseDate = (LocalDate) fields.get("releaseDate", null);
+        assignTagIds(internAll((List<String>) fields.get("themeTags", List.of())));
+        publisherNote = (String) fields.get("publisherNote", null);
     }
 
     @Override
     public String toString() {
-        return "Title: " + getTitle() +
-                "\nPublisher: " + getPublisher() +
-                "\nDescription: " + getDescription() +
-                "\nPrice: " + String.format("%.2f", getPrice()) + " " + defaultCurrency +
-                "\nRelease Date: " + getReleaseDate() +
-                "\nAge: " + gameAge() + " months old" +
-                "\nTags: " + getThemeTags().toString() +
-                (getPublisherNote() != null ? "\nNote: " + getPublisherNote(): "") +
-                "\n";
+        return CatalogRenderer.appendText(new StringBuilder(256), this, ExchangeRates.view(getDefaultCurrency()), DecimalFormatSymbols.getInstance().getDecimalSeparator()).toString();
     }
 }
\ No newline at end of file
@@ -4,9 +4,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import javax.management.ObjectName;
 
 public class DigitalGameTest {
     private DigitalGame game;
@@ -41,8 +60,10 @@ public class DigitalGameTest {
         assertEquals("[ERROR] Theme tags cannot be null or empty", exception.getMessage());
     }
 
+    //Every test gets its own default catalog, so games created by one test are invisible to the others
     @BeforeEach
     void setUp() {
+        Catalog.setDefault(new Catalog());
         game = new DigitalGame("Title", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("Tag1", "Tag2"));
     }
 
@@ -55,6 +76,40 @@ public class DigitalGameTest {
 
         exception = assertThrows(IllegalArgumentException.class, () -> new DigitalGame("Title", "Publisher", "Description", -10d, LocalDate.now(), Arrays.asList("Tag1", "Tag2")));
         assertEquals("[ERROR] Price cannot be null or less than zero", exception.getMessage());
+
+        game.setPrice(0.29);
+        assertEquals(29, game.getPriceCents());
+        game.setPrice(19.99);
+        assertEquals(1999, game.getPriceCents());
+        exception = assertThrows(IllegalArgumentException.class, () -> game.setPrice(1.234));
+        assertEquals("[ERROR] Price cannot have more than two decimal places", exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class, () -> game.setPrice(10000.005));
+        assertEquals("[ERROR] Price cannot have more than two decimal places", exception.getMessage());
+        game.setPrice(10000.01);
+        assertEquals(1000001, game.getPriceCents());
+
+        assertEquals(2999, Prices.parseCents("29.99"));
+        assertEquals(2990, Prices.parseCents("29,9"));
+        assertEquals(Prices.INVALID, Prices.parseCents("1.234"));
+    }
+
+    @Test
+    void testApplyDiscount(){
+        long total = DigitalGame.getTotalPriceCents();
+        new DigitalGame("Sale", "Publisher", "Description", 19.99, LocalDate.now(), Arrays.asList("DiscountSale"));
+
+        assertEquals(1, DigitalGame.applyDiscount("DiscountSale", 25));
+        assertEquals(14.99, DigitalGame.findWithSimilarTag("DiscountSale").get(0).getPrice());
+        assertEquals(total + 1499, DigitalGame.getTotalPriceCents());
+
+        long[] sorted = DigitalGame.getSortedPricesInCents();
+        assertEquals(DigitalGame.getAllGames().size(), sorted.length);
+        for (int i = 1; i < sorted.length; i++) {
+            assertTrue(sorted[i - 1] <= sorted[i]);
+        }
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> DigitalGame.applyDiscount("DiscountSale", 100));
+        assertEquals("[ERROR] Discount must be between 1 and 99 percent", exception.getMessage());
     }
 
     @Test
@@ -110,6 +165,8 @@ public class DigitalGameTest {
     @Test
     void testThemeTags(){
         assertEquals(List.of("Tag1", "Tag2"), game.getThemeTags());
+        DigitalGame duplicates = new DigitalGame("Title", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("Tag2", " Tag1 ", "Tag2"));
+        assertEquals(List.of("Tag2", "Tag1"), duplicates.getThemeTags());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> new DigitalGame("Title", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("   ")));
         assertEquals("[ERROR] Theme tag cannot be null or empty", exception.getMessage());
@@ -124,9 +181,30 @@ public class DigitalGameTest {
         assertEquals("[ERROR] Theme tag cannot be null or empty", exception.getMessage());
     }
 
+    @Test
+    void testValidate(){
+        assertSame(ValidationResult.VALID, DigitalGame.validate("Title", "Publisher", "Description", 10d, LocalDate.now(), List.of("Tag1"), null));
+
+        ValidationResult result = DigitalGame.validate(" ", "Publisher", null, 1.234, LocalDate.now().plusDays(1), Arrays.asList("Tag1", " "), "  ");
+        assertFalse(result.isValid());
+        assertEquals(List.of(
+                new ValidationResult.FieldError("title", "[ERROR] Title cannot be null or empty"),
+                new ValidationResult.FieldError("description", "[ERROR] Description cannot be null or empty"),
+                new ValidationResult.FieldError("price", "[ERROR] Price cannot have more than two decimal places"),
+                new ValidationResult.FieldError("releaseDate", "[ERROR] Date cannot be null"),
+                new ValidationResult.FieldError("themeTags", "[ERROR] Theme tag cannot be null or empty"),
+                new ValidationResult.FieldError("publisherNote", "[ERROR] Publisher note cannot be set as whitespace")), result.getErrors());
+        assertEquals("[ERROR] Title cannot be null or empty", result.getFirstMessage());
+
+        int size = DigitalGame.getAllGames().size();
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new DigitalGame("Title", "Publisher", "Description", 10d, LocalDate.now(), List.of("Tag1"), " "));
+        assertEquals("[ERROR] Publisher note cannot be set as whitespace", exception.getMessage());
+        assertEquals(size, DigitalGame.getAllGames().size());
+    }
+
     @Test
     void testRemoveThemeTag(){
-        game.removeThemeTag("Tag1");
+        game.removeThemeTag(" Tag1 ");
         assertEquals(List.of("Tag2"), game.getThemeTags());
 
         Exception exception =  assertThrows(IllegalArgumentException.class, () -> game.removeThemeTag("Tag2"));
@@ -143,6 +221,513 @@ public class DigitalGameTest {
 
         Exception exception =  assertThrows(IllegalArgumentException.class, () -> game.addThemeTag("Tag1"));
         assertEquals("[ERROR] Tag already exists", exception.getMessage());
+        exception =  assertThrows(IllegalArgumentException.class, () -> game.addThemeTag(" Tag1"));
+        assertEquals("[ERROR] Tag already exists", exception.getMessage());
+
+        game.addThemeTag(" Tag4 ");
+        assertEquals(List.of("Tag1", "Tag2", "Tag3", "Tag4"), game.getThemeTags());
+        assertEquals(List.of(game), DigitalGame.findWithSimilarTag("Tag4"));
+    }
+
+    @Test
+    void testFindWithSimilarTag(){
+        DigitalGame racer = new DigitalGame("Racer", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("IndexAction", "IndexRacing"));
+        DigitalGame sim = new DigitalGame("Sim", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("IndexRacing", "IndexSimulator"));
+
+        assertEquals(List.of(racer, sim), DigitalGame.findWithSimilarTag("IndexRacing"));
+        assertEquals(List.of(), DigitalGame.findWithSimilarTag("IndexMissing"));
+
+        racer.removeThemeTag("IndexRacing");
+        assertEquals(List.of(sim), DigitalGame.findWithSimilarTag("IndexRacing"));
+
+        racer.addThemeTag("IndexSimulator");
+        assertEquals(List.of(racer, sim), DigitalGame.findWithSimilarTag("IndexSimulator"));
+    }
+
+    @Test
+    void testFindSimilarGames(){
+        DigitalGame base = new DigitalGame("Base", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("SimAction", "SimRacing", "SimOpenWorld"));
+        DigitalGame close = new DigitalGame("Close", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("SimAction", "SimRacing"));
+        DigitalGame far = new DigitalGame("Far", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("SimAction", "SimPuzzle", "SimCards"));
+        new DigitalGame("Unrelated", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("SimChess"));
+
+        assertEquals(List.of(close, far), DigitalGame.findSimilarGames(base, 5));
+        assertEquals(List.of(close), DigitalGame.findSimilarGames(base, 1));
+
+        far.removeThemeTag("SimPuzzle");
+        far.removeThemeTag("SimCards");
+        far.addThemeTag("SimRacing");
+        far.addThemeTag("SimOpenWorld");
+        assertEquals(List.of(far, close), DigitalGame.findSimilarGames(base, 5));
+
+        close.removeThemeTag("SimRacing");
+        close.addThemeTag("SimChess");
+        assertEquals(List.of(far, close), DigitalGame.findSimilarGames(base, 2));
+        assertEquals(0.25f, TagSimilarity.similarity(base.getTagBits(), close.getTagBits()));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> DigitalGame.findSimilarGames(base, 0));
+        assertEquals("[ERROR] Limit must be at least one", exception.getMessage());
+    }
+
+    @Test
+    void testFindWithTags(){
+        DigitalGame racer = new DigitalGame("Racer", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("QueryAction", "QueryRacing"));
+        DigitalGame sim = new DigitalGame("Sim", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("QueryRacing", "QuerySimulator"));
+        DigitalGame rpg = new DigitalGame("Rpg", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("QueryAction", "QueryRpg"));
+
+        assertEquals(List.of(racer), DigitalGame.findWithAllTags("QueryAction", "QueryRacing"));
+        assertEquals(List.of(racer, sim, rpg), DigitalGame.findWithAnyTag("QueryAction", "QuerySimulator"));
+        assertEquals(List.of(racer), DigitalGame.findWithTags("QueryAction AND QueryRacing"));
+        assertEquals(List.of(racer, rpg), DigitalGame.findWithTags("QueryAction AND QueryRacing OR QueryRpg"));
+        assertEquals(List.of(), DigitalGame.findWithTags("QueryRpg AND QuerySimulator"));
+        assertEquals(List.of(), DigitalGame.findWithTags("   "));
+    }
+
+    @Test
+    void testTagQueriesKeepExtentOrder() throws IOException {
+        //Tagged in reverse order, results still follow the extent like the scan they replaced
+        DigitalGame first = new DigitalGame("First", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("OrderAction"));
+        DigitalGame second = new DigitalGame("Second", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("OrderAction"));
+        DigitalGame third = new DigitalGame("Third", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("OrderAction"));
+        third.addThemeTag("OrderRacing");
+        second.addThemeTag("OrderRacing");
+        first.addThemeTag("OrderRacing");
+        first.addThemeTag("OrderRpg");
+
+        List<String> expected = List.of("First", "Second", "Third");
+        assertEquals(expected, titles(DigitalGame.findWithSimilarTag("OrderRacing")));
+        assertEquals(expected, titles(DigitalGame.findWithAllTags("OrderRacing", "OrderAction")));
+        assertEquals(expected, titles(DigitalGame.findWithAnyTag("OrderRpg", "OrderRacing")));
+        assertEquals(expected, titles(DigitalGame.findWithTags("OrderRpg OR OrderRacing AND OrderAction")));
+
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.loadExtent(path);
+            assertEquals(expected, titles(DigitalGame.findWithSimilarTag("OrderRacing")));
+            DigitalGame.openExtent(path);
+            assertEquals(expected, titles(DigitalGame.findWithSimilarTag("OrderRacing")));
+            assertEquals(expected, titles(DigitalGame.findWithAnyTag("OrderRpg", "OrderRacing")));
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+    }
+
+    private static List<String> titles(List<DigitalGame> games) {
+        return games.stream().map(DigitalGame::getTitle).toList();
+    }
+
+    @Test
+    void testCatalogs() {
+        Catalog other = new Catalog();
+        DigitalGame own = new DigitalGame(other, "Own", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("Tag1"), null);
+        assertEquals(List.of(game), DigitalGame.findWithSimilarTag("Tag1"));
+        assertEquals(List.of(own), other.findWithSimilarTag("Tag1"));
+
+        other.setCurrency("PLN");
+        assertEquals("PLN", own.getDefaultCurrency());
+        assertEquals("EUR", game.getDefaultCurrency());
+
+        own.addThemeTag("Tag2");
+        assertEquals(List.of(own), other.findWithTags("Tag1 AND Tag2"));
+        assertEquals(List.of(game), DigitalGame.findWithTags("Tag1 AND Tag2"));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> Catalog.setDefault(null));
+        assertEquals("[ERROR] Catalog cannot be null", exception.getMessage());
+    }
+
+    @Test
+    void testPartitionedCatalog() throws IOException {
+        PartitionedCatalog catalog = new PartitionedCatalog(4, PartitionedCatalog.Key.PUBLISHER);
+        for (int i = 0; i < 40; i++) {
+            catalog.add("Game " + i, "Publisher " + i % 10, "Description", 10d + i, LocalDate.of(2015, 5, 13), Arrays.asList("Tag" + i % 3, "Shared"), null);
+        }
+        assertEquals(40, catalog.size());
+        for (int i = 0; i < catalog.getPartitionCount(); i++) {
+            for (DigitalGame partitioned : catalog.getPartition(i).getAllGames()) {
+                assertEquals(i, catalog.partitionOf(partitioned.getPublisher(), partitioned.getThemeTags()));
+            }
+        }
+        assertEquals(40, catalog.findWithSimilarTag("Shared").size());
+        assertEquals(14, catalog.findWithSimilarTag("Tag0").size());
+        assertEquals(List.of("Game 3", "Game 13", "Game 23", "Game 33"), catalog.findByPublisher("Publisher 3").stream().map(DigitalGame::getTitle).toList());
+        assertEquals(11, catalog.findWithPriceBetween(20d, 30d).size());
+        assertEquals(List.of(game), DigitalGame.findWithSimilarTag("Tag1"));
+
+        //A game keeps its partition when the key changes and is still found by the new key
+        DigitalGame moved = catalog.findByPublisher("Publisher 3").get(0);
+        moved.setPublisher("Publisher 4");
+        assertEquals(5, catalog.findByPublisher("Publisher 4").size());
+        assertEquals(3, catalog.findByPublisher("Publisher 3").size());
+        PartitionedCatalog byTag = new PartitionedCatalog(4, PartitionedCatalog.Key.TAG);
+        DigitalGame tagged = byTag.add("Tagged", "Publisher", "Description", 10d, LocalDate.of(2015, 5, 13), Arrays.asList("First", "Second"), null);
+        tagged.removeThemeTag("First");
+        assertEquals(List.of(tagged), byTag.findWithSimilarTag("Second"));
+
+        Path directory = Files.createTempDirectory("partitions");
+        try {
+            catalog.save(directory);
+            PartitionedCatalog loaded = new PartitionedCatalog(4, PartitionedCatalog.Key.PUBLISHER);
+            loaded.load(directory, 2);
+            assertEquals(catalog.getPartition(2).size(), loaded.size());
+            loaded.load(directory);
+            assertEquals(40, loaded.size());
+            assertEquals(catalog.getTotalPriceCents(), loaded.getTotalPriceCents());
+            assertEquals(catalog.findByPublisher("Publisher 7").stream().map(DigitalGame::getTitle).toList(),
+                    loaded.findByPublisher("Publisher 7").stream().map(DigitalGame::getTitle).toList());
+
+            assertThrows(IOException.class, () -> new PartitionedCatalog(3, PartitionedCatalog.Key.PUBLISHER).load(directory));
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new PartitionedCatalog(0, PartitionedCatalog.Key.TAG));
+        assertEquals("[ERROR] A catalog needs at least one partition", exception.getMessage());
+    }
+
+    @Test
+    void testQueryCache() throws IOException {
+        DigitalGame racer = new DigitalGame("Racer", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("CacheAction", "CacheRacing"));
+        DigitalGame rpg = new DigitalGame("Rpg", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("CacheRpg"));
+
+        List<DigitalGame> action = DigitalGame.findWithSimilarTag("CacheAction");
+        long hits = DigitalGame.queryCacheStats().hits();
+        assertSame(action, DigitalGame.findWithSimilarTag("CacheAction"));
+        assertEquals(hits + 1, DigitalGame.queryCacheStats().hits());
+        assertSame(action, DigitalGame.findWithSimilarTag(" CacheAction "));
+        assertThrows(UnsupportedOperationException.class, () -> action.add(rpg));
+
+        List<DigitalGame> both = DigitalGame.findWithTags("CacheAction AND CacheRacing");
+        assertSame(both, DigitalGame.findWithTags(" CacheAction  AND CacheRacing"));
+        assertEquals(List.of(), DigitalGame.findWithSimilarTag("CacheNew"));
+        rpg.addThemeTag("CacheRacing");
+        assertSame(action, DigitalGame.findWithSimilarTag("CacheAction"));
+        assertNotSame(both, DigitalGame.findWithTags("CacheAction AND CacheRacing"));
+        rpg.addThemeTag("CacheAction");
+        assertEquals(List.of(racer, rpg), DigitalGame.findWithSimilarTag("CacheAction"));
+        assertEquals(List.of(racer, rpg), DigitalGame.findWithTags("CacheAction AND CacheRacing"));
+
+        DigitalGame created = new DigitalGame("New", "Publisher", "Description", 10d, LocalDate.now(), Arrays.asList("CacheNew"));
+        assertEquals(List.of(created), DigitalGame.findWithSimilarTag("CacheNew"));
+        racer.removeThemeTag("CacheAction");
+        assertEquals(List.of(rpg), DigitalGame.findWithSimilarTag("CacheAction"));
+
+        Path path = Files.createTempFile("cache", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.loadExtent(path);
+            assertEquals(0, DigitalGame.queryCacheStats().entries());
+            assertEquals("Rpg", DigitalGame.findWithSimilarTag("CacheAction").get(0).getTitle());
+            assertNotSame(rpg, DigitalGame.findWithSimilarTag("CacheAction").get(0));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(TextIndex.sidecar(path));
+        }
+    }
+
+    @Test
+    void testQuery() throws IOException {
+        DigitalGame witcher = new DigitalGame("Witcher", "QueryRed", "Description", 40d, LocalDate.of(2015, 5, 13), Arrays.asList("RangeAction"));
+        DigitalGame heat = new DigitalGame("Heat", "QueryArts", "Description", 50.99, LocalDate.of(2019, 10, 8), Arrays.asList("RangeAction", "RangeRacing"));
+        DigitalGame schedule = new DigitalGame("Schedule", "QueryTvgs", "Description", 29.99, LocalDate.of(2019, 3, 31), Arrays.asList("RangeRacing"));
+
+        assertEquals(List.of(heat, schedule), new GameQuery().releasedIn(2019).find());
+        assertEquals(List.of(heat), new GameQuery().releasedIn(2019).withTag("RangeAction").find());
+        assertEquals(List.of(schedule), new GameQuery().priceBetween(29.99, 29.99).publisher("QueryTvgs").find());
+        assertEquals(List.of(witcher, heat), DigitalGame.findWithPriceBetween(30d, null).stream().filter(g -> g.getThemeTags().contains("RangeAction")).toList());
+        assertEquals(List.of(), new GameQuery().publisher("QueryRed").withTag("RangeRacing").find());
+
+        heat.setPrice(19.99);
+        heat.setPublisher("QueryRed");
+        schedule.setReleaseDate(LocalDate.of(2020, 1, 1));
+        assertEquals(List.of(heat), new GameQuery().priceBetween(null, 20d).withTag("RangeAction").find());
+        assertEquals(List.of(witcher, heat), DigitalGame.findByPublisher("QueryRed"));
+        assertEquals(List.of(heat), DigitalGame.findReleasedBetween(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31)).stream().filter(g -> g.getPublisher().startsWith("Query")).toList());
+
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.loadExtent(path);
+            assertEquals(2, DigitalGame.findByPublisher("QueryRed").size());
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.deleteIfExists(path);
+        }
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new GameQuery().priceBetween(20d, 10d));
+        assertEquals("[ERROR] Invalid price range", exception.getMessage());
+    }
+
+    @Test
+    void testQueryDuringPriceChange() {
+        DigitalGame moving = new DigitalGame("Moving", "Publisher", "Description", 20d, LocalDate.of(2019, 1, 1), Arrays.asList("MovingAction"));
+        DigitalGame other = new DigitalGame("Other", "Publisher", "Description", 21d, LocalDate.of(2019, 1, 1), Arrays.asList("MovingAction"));
+        List<DigitalGame> games = DigitalGame.getAllGames();
+        SecondaryIndexes indexes = SecondaryIndexes.of(games);
+
+        //Halfway through a price change the game is indexed under its old and its new price
+        moving.setPrice(22d);
+        indexes.add(moving);
+        assertEquals(List.of(moving, other), new GameQuery().priceBetween(19d, 23d).execute(games, TagIndex.of(games), indexes));
+        assertEquals(List.of(moving), new GameQuery().priceBetween(22d, 23d).execute(games, TagIndex.of(games), indexes));
+    }
+
+    @Test
+    void testSearch() throws IOException {
+        DigitalGame dragon = new DigitalGame("Dragonfire Saga", "Publisher", "A quest across burning kingdoms", 40d, LocalDate.of(2015, 5, 13), Arrays.asList("Tag1"));
+        DigitalGame kingdom = new DigitalGame("Kingdoms", "Publisher", "Build a kingdom, fight a dragonfire beast", 30d, LocalDate.of(2019, 10, 8), Arrays.asList("Tag1"), "Dragonfire expansion included");
+        DigitalGame racer = new DigitalGame("Street Racer", "Publisher", "Cars and neon streets", 20d, LocalDate.of(2019, 10, 8), Arrays.asList("Tag1"));
+
+        assertEquals(List.of(dragon, kingdom), DigitalGame.search("DRAGONFIRE", 10));
+        assertEquals(List.of(dragon), DigitalGame.search("dragonfire", 1));
+        assertEquals(List.of(kingdom, dragon), DigitalGame.search("kingdom*", 10));
+        assertEquals(List.of(), DigitalGame.search("submarine", 10));
+
+        racer.setDescription("Neon streets full of dragonfire");
+        kingdom.setPublisherNote(null);
+        assertEquals(List.of(dragon, kingdom, racer), DigitalGame.search("dragonfire", 10));
+        dragon.setTitle("Ashen Saga");
+        assertEquals(List.of(kingdom, racer), DigitalGame.search("dragonfire", 10));
+
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.loadExtent(path);
+            assertNotNull(TextIndex.read(TextIndex.sidecar(path), ExtentFile.readStamp(path), DigitalGame.getAllGames().size()));
+            assertNull(TextIndex.read(TextIndex.sidecar(path), ExtentFile.readStamp(path) + 2, DigitalGame.getAllGames().size()));
+            assertEquals(List.of("Kingdoms", "Street Racer"), DigitalGame.search("dragonfire", 10).stream().map(DigitalGame::getTitle).toList());
+            assertFalse(Files.exists(TextIndex.sidecar(path).resolveSibling(TextIndex.sidecar(path).getFileName() + ".tmp")));
+
+            //A torn sidecar counts as missing, the index is rebuilt by the first search
+            byte[] sidecar = Files.readAllBytes(TextIndex.sidecar(path));
+            Files.write(TextIndex.sidecar(path), Arrays.copyOf(sidecar, sidecar.length / 2));
+            assertNull(TextIndex.read(TextIndex.sidecar(path), ExtentFile.readStamp(path), DigitalGame.getAllGames().size()));
+            sidecar[sidecar.length / 2] ^= (byte) 0xFF;
+            Files.write(TextIndex.sidecar(path), sidecar);
+            DigitalGame.loadExtent(path);
+            assertEquals(List.of("Kingdoms", "Street Racer"), DigitalGame.search("dragonfire", 10).stream().map(DigitalGame::getTitle).toList());
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> DigitalGame.search("saga", 0));
+        assertEquals("[ERROR] Limit must be at least one", exception.getMessage());
+    }
+
+    @Test
+    void testSaveAndLoadExtent() throws IOException {
+        DigitalGame saved = new DigitalGame("Saved", "Publisher", "Description", 29.99, LocalDate.of(2019, 10, 8), Arrays.asList("FileAction", "FileRacing"), "Early Access");
+        new DigitalGame("Other", "Publisher", "Description", 9.99, LocalDate.of(2019, 10, 8), Arrays.asList(new String("FileRacing")));
+        int size = DigitalGame.getAllGames().size();
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.loadExtent(path);
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+
+        assertEquals(size, DigitalGame.getAllGames().size());
+        DigitalGame loaded = DigitalGame.findWithSimilarTag("FileRacing").get(0);
+        assertNotSame(saved, loaded);
+        assertEquals(saved.toString(), loaded.toString());
+        assertSame(loaded.getPublisher(), DigitalGame.getAllGames().get(0).getPublisher());
+        List<DigitalGame> racing = DigitalGame.findWithSimilarTag("FileRacing");
+        assertEquals(2, racing.size());
+        assertSame(racing.get(0).getThemeTags().get(1), racing.get(1).getThemeTags().get(0));
+    }
+
+    @Test
+    void testLoadDamagedExtent() throws IOException {
+        new DigitalGame("Damaged", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("DamagedAction"));
+        int size = DigitalGame.getAllGames().size();
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            byte[] bytes = Files.readAllBytes(path);
+
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+            IOException exception = assertThrows(IOException.class, () -> DigitalGame.loadExtent(path));
+            assertEquals("[ERROR] Extent file is corrupt", exception.getMessage());
+            assertThrows(IOException.class, () -> DigitalGame.openExtent(path));
+
+            //Game count larger than the record index
+            byte[] count = bytes.clone();
+            count[8] = 1;
+            Files.write(path, count);
+            assertThrows(IOException.class, () -> DigitalGame.loadExtent(path));
+
+            //Length of the first title running past the end of its record
+            byte[] record = bytes.clone();
+            record[ExtentFile.HEADER_SIZE + 1] = 0x7F;
+            Files.write(path, record);
+            assertThrows(IOException.class, () -> DigitalGame.loadExtent(path));
+            DigitalGame.openExtent(path);
+            assertThrows(UncheckedIOException.class, () -> DigitalGame.getAllGames().get(0));
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testSaveAndLoadSnapshot() throws IOException {
+        DigitalGame saved = new DigitalGame("Snapshot", "Publisher", "Description", 29.99, LocalDate.of(2019, 10, 8), Arrays.asList("SnapshotAction", "SnapshotRacing"), "Early Access");
+        for (int i = 0; i < SnapshotFile.BLOCK_GAMES + 1; i++) {
+            new DigitalGame("Game " + i, "Publisher " + i % 7, "Description", 1d + i % 100, LocalDate.of(2019, 10, 8), Arrays.asList("SnapshotRacing", "Snapshot" + i % 13));
+        }
+        List<String> games = DigitalGame.getAllGames().stream().map(DigitalGame::toString).toList();
+        Path path = Files.createTempFile("games", ".snapshot");
+        try {
+            DigitalGame.saveSnapshot(path);
+            DigitalGame.loadSnapshot(path);
+            assertEquals(games, DigitalGame.getAllGames().stream().map(DigitalGame::toString).toList());
+            assertNotSame(saved, DigitalGame.findWithSimilarTag("SnapshotAction").get(0));
+            assertEquals(SnapshotFile.BLOCK_GAMES + 2, DigitalGame.findWithSimilarTag("SnapshotRacing").size());
+            assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+            assertNotNull(TextIndex.read(TextIndex.sidecar(path), SnapshotFile.readStamp(path), games.size()));
+            assertEquals("Snapshot", DigitalGame.search("snapshot", 1).get(0).getTitle());
+
+            byte[] bytes = Files.readAllBytes(path);
+            byte[] otherVersion = bytes.clone();
+            otherVersion[7] = 1;
+            Files.write(path, otherVersion);
+            IOException version = assertThrows(IOException.class, () -> DigitalGame.loadSnapshot(path));
+            assertEquals("[ERROR] Unsupported snapshot file version 1", version.getMessage());
+
+            //A flipped byte in the last block fails the load and leaves the loaded extent as it was
+            bytes[bytes.length - 10] ^= 1;
+            Files.write(path, bytes);
+            IOException e = assertThrows(IOException.class, () -> DigitalGame.loadSnapshot(path));
+            assertEquals("[ERROR] Snapshot block 1 is corrupt", e.getMessage());
+            assertEquals(games.size(), DigitalGame.getAllGames().size());
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testOpenMappedExtent() throws IOException {
+        new DigitalGame("Mapped", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("MappedAction", "MappedRacing"));
+        new DigitalGame("Other", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("MappedAction"));
+        int size = DigitalGame.getAllGames().size();
+        Path path = Files.createTempFile("games", ".bin");
+        try {
+            DigitalGame.saveExtent(path);
+            DigitalGame.openExtent(path);
+
+            assertEquals(size, DigitalGame.getAllGames().size());
+            DigitalGame mapped = DigitalGame.findWithSimilarTag("MappedRacing").get(0);
+            assertEquals("Mapped", mapped.getTitle());
+            assertSame(mapped, DigitalGame.findWithAllTags("MappedAction", "MappedRacing").get(0));
+            assertEquals(2, DigitalGame.findWithTags("MappedAction OR MappedRacing").size());
+
+            mapped.addThemeTag("MappedSimulator");
+            assertEquals(List.of(mapped), DigitalGame.findWithSimilarTag("MappedSimulator"));
+            assertEquals(size, DigitalGame.getAllGames().size());
+
+            //Changed and added games are found by their current tags while the extent stays mapped
+            mapped.removeThemeTag("MappedAction");
+            DigitalGame added = new DigitalGame("Added", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("MappedRacing"));
+            assertEquals(List.of("Other"), titles(DigitalGame.findWithSimilarTag("MappedAction")));
+            assertEquals(List.of(mapped, added), DigitalGame.findWithSimilarTag("MappedRacing"));
+            assertEquals(List.of(mapped), DigitalGame.findWithAllTags("MappedRacing", "MappedSimulator"));
+            assertSame(added, DigitalGame.getAllGames().get(size));
+
+            //Saving over the mapped file keeps the changes and leaves the mapping readable
+            DigitalGame.saveExtent(path);
+            assertEquals(size + 1, DigitalGame.getAllGames().size());
+            DigitalGame.loadExtent(path);
+            assertEquals(List.of("Mapped", "Added"), titles(DigitalGame.findWithSimilarTag("MappedRacing")));
+            assertEquals(List.of("Other"), titles(DigitalGame.findWithSimilarTag("MappedAction")));
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testJournalReplay() throws IOException {
+        DigitalGame journaled = new DigitalGame("Journaled", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("JournalAction"));
+        Path path = Files.createTempFile("games", ".bin");
+        try (ExtentJournal journal = ExtentJournal.open(path)) {
+            DigitalGame.saveExtent(path);
+            journal.reset();
+            DigitalGame.attachJournal(journal);
+            journaled.setPrice(20.5);
+            journaled.addThemeTag("JournalRacing");
+            new DigitalGame("Created", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("JournalRacing"), "Note");
+            journal.sync();
+            long size = journal.size();
+            //Journaled but never saved, loading goes back to the last save
+            journaled.setTitle("Unsaved");
+            DigitalGame.detachJournal();
+            Files.write(journal.getPath(), new byte[] {0, 0, 0, 42, 1}, StandardOpenOption.APPEND);
+
+            DigitalGame.loadExtent(path);
+            assertEquals(List.of(), DigitalGame.findWithSimilarTag("JournalRacing"));
+            assertEquals(3, journal.replay());
+            assertEquals(size, journal.size());
+        } finally {
+            Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".journal"));
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+
+        List<DigitalGame> racing = DigitalGame.findWithSimilarTag("JournalRacing");
+        assertEquals(2, racing.size());
+        assertEquals(20.5, racing.get(0).getPrice());
+        assertEquals("Journaled", racing.get(0).getTitle());
+        assertEquals("Note", racing.get(1).getPublisherNote());
+    }
+
+    @Test
+    void testJournalReplayRejectsGap() throws IOException {
+        new DigitalGame("Saved", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("GapAction"));
+        Path path = Files.createTempFile("games", ".bin");
+        try (ExtentJournal journal = ExtentJournal.open(path)) {
+            DigitalGame.saveExtent(path);
+            journal.reset();
+            DigitalGame.attachJournal(journal);
+            new DigitalGame("Created", "Publisher", "Description", 15d, LocalDate.of(2020, 1, 1), Arrays.asList("GapAction"));
+            journal.sync();
+            DigitalGame.detachJournal();
+
+            //The created game was the second one, an empty catalog would renumber it
+            Catalog empty = new Catalog();
+            try (ExtentJournal other = ExtentJournal.open(empty, path)) {
+                IOException e = assertThrows(IOException.class, other::replay);
+                assertEquals("[ERROR] Journal does not match the loaded games", e.getMessage());
+            }
+            assertEquals(0, empty.size());
+        } finally {
+            Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".journal"));
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testImportSerializedExtent() throws IOException, ClassNotFoundException {
+        new DigitalGame("Legacy", "Publisher", "Description", 0.29, LocalDate.of(2015, 5, 13), Arrays.asList("LegacyTag"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            DigitalGame.saveExtent(oos);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            DigitalGame.loadExtent(ois);
+        }
+
+        assertEquals(29, DigitalGame.findWithSimilarTag("LegacyTag").get(0).getPriceCents());
     }
 
     @Test
@@ -172,6 +757,181 @@ public class DigitalGameTest {
         assertEquals("[ERROR] Invalid currency", exception.getMessage());
     }
 
+    @Test
+    void testExchangeRates(){
+        ExchangeRates.setRate("GBP", new BigDecimal("0.85"));
+        assertEquals(8.5, game.getPrice("GBP"));
+        assertEquals(10d, game.getPrice("CHF"));
+
+        DigitalGame.setCurrency("GBP");
+        try {
+            assertTrue(game.toString().contains("\nPrice: 8,50 GBP\n"));
+        } finally {
+            DigitalGame.setCurrency("EUR");
+        }
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> ExchangeRates.setRate("XYZ", BigDecimal.ONE));
+        assertEquals("[ERROR] Invalid exchange rate", exception.getMessage());
+
+        //The largest price at a large rate, cents times rate micros no longer fits in a long
+        game.setPriceCents(Prices.MAX_CENTS);
+        ExchangeRates.setRate("IDR", new BigDecimal("17500.123456"));
+        assertEquals(new BigDecimal(Prices.MAX_CENTS).multiply(new BigDecimal("17500.123456")).setScale(0, RoundingMode.HALF_UP).longValueExact(),
+                ExchangeRates.view("IDR").convertCents(game.getPriceCents()));
+        assertEquals(Prices.MAX_CENTS, ExchangeRates.view("EUR").convertCents(Prices.MAX_CENTS));
+        exception = assertThrows(IllegalArgumentException.class, () -> game.setPriceCents(Prices.MAX_CENTS + 1));
+        assertEquals("[ERROR] Price is too large", exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class, () -> ExchangeRates.setRate("IDR", new BigDecimal("1e10")));
+        assertEquals("[ERROR] Invalid exchange rate", exception.getMessage());
+    }
+
+    @Test
+    void testRenderCatalog() throws IOException {
+        DigitalGame quoted = new DigitalGame("Say \"Hi\", World", "Publisher", "Description", 0.29, LocalDate.of(2015, 5, 13), Arrays.asList("Tag1"), "Note");
+        List<DigitalGame> games = List.of(game, quoted);
+
+        StringBuilder csv = new StringBuilder();
+        new CatalogRenderer(CatalogRenderer.Format.CSV, "EUR").render(games, csv);
+        assertEquals(CatalogRenderer.CSV_HEADER +
+                "Title,Publisher,Description,10.00,EUR," + LocalDate.now() + ",0,Tag1;Tag2,\n" +
+                "\"Say \"\"Hi\"\", World\",Publisher,Description,0.29,EUR,2015-05-13," + quoted.gameAge() + ",Tag1,Note\n", csv.toString());
+
+        StringBuilder jsonl = new StringBuilder();
+        new CatalogRenderer(CatalogRenderer.Format.JSONL, "EUR").render(List.of(quoted), jsonl);
+        assertEquals("{\"title\":\"Say \\\"Hi\\\", World\",\"publisher\":\"Publisher\",\"description\":\"Description\",\"price\":0.29,\"currency\":\"EUR\"," +
+                "\"releaseDate\":\"2015-05-13\",\"ageMonths\":" + quoted.gameAge() + ",\"tags\":[\"Tag1\"],\"note\":\"Note\"}\n", jsonl.toString());
+
+        StringBuilder text = new StringBuilder();
+        new CatalogRenderer(CatalogRenderer.Format.TEXT, "EUR").render(games, text);
+        assertEquals(game + "\n" + quoted + "\n", text.toString());
+
+        Path path = Files.createTempFile("games", ".jsonl");
+        try {
+            DigitalGame.exportExtent(path, CatalogRenderer.Format.JSONL);
+            assertEquals(DigitalGame.getAllGames().size(), Files.readAllLines(path).size());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testImportCatalog() throws IOException {
+        int size = DigitalGame.getAllGames().size();
+        String csv = "title,publisher,description,price,currency,releaseDate,ageMonths,tags,note\n" +
+                "Imported,Publisher,Description,19.99,EUR,2015-05-13,0,ImportAction;ImportRacing,\n" +
+                "\"Multi\nline\",Publisher,Description,5,EUR,2015-05-13,0,ImportAction,Note\n" +
+                "Bad price,Publisher,Description,1.234,EUR,2015-05-13,0,ImportAction,\n" +
+                "No tags,Publisher,Description,5,EUR,2015-05-13,0,,\n" +
+                "\n" +
+                "Short,Publisher\n";
+        CatalogImporter.Report report = new CatalogImporter(CatalogRenderer.Format.CSV).importFrom(new StringReader(csv));
+        assertEquals(5, report.rows());
+        assertEquals(2, report.imported());
+        assertEquals(List.of(
+                new CatalogImporter.RowError(5, "[ERROR] Invalid price"),
+                new CatalogImporter.RowError(6, "[ERROR] Theme tags cannot be null or empty"),
+                new CatalogImporter.RowError(8, "[ERROR] Expected 9 fields but found 2")), report.errors());
+        assertEquals(size + 2, DigitalGame.getAllGames().size());
+        assertEquals(List.of("Imported", "Multi\nline"), DigitalGame.findWithSimilarTag("ImportAction").stream().map(DigitalGame::getTitle).toList());
+        assertEquals(1999, DigitalGame.findWithSimilarTag("ImportRacing").get(0).getPriceCents());
+
+        String jsonl = "{\"title\":\"Json\",\"publisher\":\"Publisher\",\"description\":\"Description\",\"price\":7.5,\"releaseDate\":\"2015-05-13\",\"tags\":[\"ImportJson\"],\"note\":null}\n" +
+                "{\"title\":\"Future\",\"publisher\":\"Publisher\",\"description\":\"Description\",\"price\":7.5,\"releaseDate\":\"2999-01-01\",\"tags\":[\"ImportJson\"]}\n" +
+                "{\"title\":\"Broken\"\n";
+        report = new CatalogImporter(CatalogRenderer.Format.JSONL).importFrom(new StringReader(jsonl));
+        assertEquals(1, report.imported());
+        assertEquals(List.of(
+                new CatalogImporter.RowError(2, "[ERROR] Date cannot be null"),
+                new CatalogImporter.RowError(3, "[ERROR] Invalid JSON at column 18")), report.errors());
+        assertEquals(750, DigitalGame.findWithSimilarTag("ImportJson").get(0).getPriceCents());
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new CatalogImporter(CatalogRenderer.Format.TEXT));
+        assertEquals("[ERROR] Text catalogs cannot be imported", exception.getMessage());
+    }
+
+    @Test
+    void testCatalogServer() throws Exception {
+        Path path = Files.createTempFile("server", ".bin");
+        try (CatalogServer server = CatalogServer.start(new InetSocketAddress("localhost", 0), 50, path);
+             HttpClient client = HttpClient.newHttpClient()) {
+            URI base = URI.create("http://localhost:" + server.getPort());
+            String line = "{\"title\":\"Served\",\"publisher\":\"Publisher\",\"description\":\"Description\",\"price\":9.99,\"releaseDate\":\"2015-05-13\",\"tags\":[\"ServerAction\"],\"note\":null}\n";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/games")).POST(HttpRequest.BodyPublishers.ofString(line)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, response.statusCode());
+            assertEquals("{\"imported\":1,\"errors\":[]}\n", response.body());
+
+            DigitalGame served = DigitalGame.findWithSimilarTag("ServerAction").get(0);
+            response = client.send(HttpRequest.newBuilder(base.resolve("/games/" + served.getOrdinal() + "/tags/ServerRacing")).PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals(List.of("ServerAction", "ServerRacing"), served.getThemeTags());
+
+            response = client.send(HttpRequest.newBuilder(base.resolve("/games?tag=ServerRacing")).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("{\"id\":" + served.getOrdinal() + ",\"title\":\"Served\""));
+
+            //The page end is offset + limit, which must not overflow
+            response = client.send(HttpRequest.newBuilder(base.resolve("/games?offset=1&limit=2147483647")).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals(1, response.body().lines().count());
+            assertTrue(response.body().startsWith("{\"id\":1,\"title\":\"Served\""));
+
+            response = client.send(HttpRequest.newBuilder(base.resolve("/games/" + served.getOrdinal() + "/tags/ServerRacing")).PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+            assertEquals("[ERROR] Tag already exists\n", response.body());
+
+            response = client.send(HttpRequest.newBuilder(base.resolve("/games/-1")).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, response.statusCode());
+
+            response = client.send(HttpRequest.newBuilder(base.resolve("/save")).POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(SnapshotFile.isSnapshotFile(path));
+
+            //An extent file stays an extent file
+            DigitalGame.saveExtent(path);
+            response = client.send(HttpRequest.newBuilder(base.resolve("/save")).POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(ExtentFile.isExtentFile(path));
+        } finally {
+            Files.deleteIfExists(TextIndex.sidecar(path));
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Metrics.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500_000, snapshot.getP50(), 500_000 / 32d);
+        assertEquals(990_000, snapshot.getP99(), 990_000 / 32d);
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_500, snapshot.getMean(), 0.001);
+
+        long failures = Metrics.counter("validation.failures.title").sum();
+        assertThrows(IllegalArgumentException.class, () -> game.setTitle(" "));
+        assertEquals(failures + 1, Metrics.counter("validation.failures.title").sum());
+        long queries = Metrics.histogram("query.findWithSimilarTag").snapshot().getCount();
+        DigitalGame.findWithSimilarTag("Tag1");
+        assertEquals(queries + 1, Metrics.histogram("query.findWithSimilarTag").snapshot().getCount());
+
+        Metrics.setEnabled(false);
+        try {
+            DigitalGame.findWithSimilarTag("Tag1");
+            assertEquals(queries + 1, Metrics.histogram("query.findWithSimilarTag").snapshot().getCount());
+        } finally {
+            Metrics.setEnabled(true);
+        }
+
+        Metrics.registerMBean();
+        Object counters = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Counters");
+        assertNotNull(counters);
+        assertEquals((long) DigitalGame.getAllGames().size(), Metrics.counterValues().get("extent.size"));
+        assertTrue(Metrics.dump().contains("query.findWithSimilarTag"));
+    }
+
     @Test
     void testToString(){
         String expected =
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Currency codes and EUR exchange rates. The rate table is immutable and swapped as a whole on reload,
+//every currency gets one precomputed view per load which is then shared by all renders.
+public class ExchangeRates {
+    //Attributes
+    public static final String BASE_CURRENCY = "EUR";
+    private static final long RATE_SCALE = 1_000_000;
+    //Any price converted at any rate up to this one still fits in long cents
+    private static final BigDecimal MAX_RATE = BigDecimal.valueOf(Long.MAX_VALUE / Prices.MAX_CENTS);
+    private static final BigInteger BIG_RATE_SCALE = BigInteger.valueOf(RATE_SCALE);
+    private static final BigInteger BIG_HALF_RATE_SCALE = BigInteger.valueOf(RATE_SCALE / 2);
+    private static final Set<String> codes = Currency.getAvailableCurrencies().stream().map(Currency::getCurrencyCode).collect(Collectors.toUnmodifiableSet());
+    private static final CurrencyView BASE_VIEW = new CurrencyView(BASE_CURRENCY, RATE_SCALE);
+    private static volatile Map<String, CurrencyView> views = Map.of(BASE_CURRENCY, BASE_VIEW);
+    private static volatile long version = 0;
+
+    private ExchangeRates() {
+    }
+
+    public static boolean isCurrencyCode(String code) {
+        return code != null && codes.contains(code);
+    }
+
+    //File format: one "CODE=rate" per line, the rate is the amount of CODE worth 1 EUR, '#' starts a comment
+    public static void load(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        Map<String, CurrencyView> loaded = new HashMap<>();
+        loaded.put(BASE_CURRENCY, BASE_VIEW);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf('=');
+            String code = separator < 0 ? line : line.substring(0, separator).strip();
+            if (separator < 0 || !isCurrencyCode(code)) {
+                throw new IOException("[ERROR] Invalid exchange rate in line " + (i + 1));
+            }
+            loaded.put(code, new CurrencyView(code, parseRate(line.substring(separator + 1).strip(), i + 1)));
+        }
+        setViews(loaded);
+    }
+
+    public static void setRate(String code, BigDecimal rate) {
+        if (!isCurrencyCode(code) || rate == null || rate.signum() <= 0 || rate.compareTo(MAX_RATE) > 0) {
+            throw new IllegalArgumentException("[ERROR] Invalid exchange rate");
+        }
+        Map<String, CurrencyView> updated = new HashMap<>(views);
+        updated.put(code, new CurrencyView(code, rate.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact()));
+        setViews(updated);
+    }
+
+    public static boolean hasRate(String code) {
+        return views.containsKey(code);
+    }
+
+    //View for the currency, or the base currency view when no rate is known for it
+    public static CurrencyView view(String code) {
+        CurrencyView view = views.get(code);
+        return view == null ? BASE_VIEW : view;
+    }
+
+    public static long getVersion() {
+        return version;
+    }
+
+    private static synchronized void setViews(Map<String, CurrencyView> updated) {
+        views = Map.copyOf(updated);
+        version++;
+    }
+
+    private static long parseRate(String value, int line) throws IOException {
+        try {
+            BigDecimal rate = new BigDecimal(value);
+            if (rate.signum() <= 0 || rate.compareTo(MAX_RATE) > 0) {
+                throw new NumberFormatException();
+            }
+            return rate.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IOException("[ERROR] Invalid exchange rate in line " + line);
+        }
+    }
+
+    //Rate kept as a fixed-point number with six decimals, conversions stay in integer arithmetic.
+    //A product that does not fit in a long, a large price at a large rate, is converted exactly with BigInteger.
+    public record CurrencyView(String code, long rateMicros) {
+        public long convertCents(long baseCents) {
+            long product = baseCents * rateMicros;
+            if (Math.multiplyHigh(baseCents, rateMicros) == 0 && product >= 0 && product <= Long.MAX_VALUE - RATE_SCALE / 2) {
+                return (product + RATE_SCALE / 2) / RATE_SCALE;
+            }
+            return BigInteger.valueOf(baseCents).multiply(BigInteger.valueOf(rateMicros)).add(BIG_HALF_RATE_SCALE).divide(BIG_RATE_SCALE).longValueExact();
+        }
+    }
+}
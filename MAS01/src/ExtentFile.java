@@ -0,0 +1,527 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Binary extent layout (big endian):
+//  header     magic, version, count, stamp, dictionary offset, index offset
+//  records    per game: length, title, description, publisher id, price in cents, release epoch day, note, tag ids
+//  dictionary deduplicated publisher and tag strings
+//  index      absolute offset of every record
+//  postings   (version 2) per tag: dictionary id, game count, ascending record numbers
+//Numbers inside records and string lengths are varints, strings are UTF-8 prefixed with length + 1 (0 means null)
+//The stamp is random per write and ties files derived from the extent (like the text index) to this exact copy
+//Counts and offsets are checked before they are followed, a truncated or damaged file fails with an IOException
+class ExtentFile {
+    //Attributes
+    static final int MAGIC = 0x4D415347;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 40;
+    private static final int HEADER_SIZE_V1 = 32;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ExtentFile() {
+    }
+
+    static boolean isExtentFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            readFully(channel, magic, 0);
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static int write(Path path, List<DigitalGame> games) throws IOException {
+        return write(path, games, null);
+    }
+
+    //The text builder, when given, sees the same strings as the records so both describe one state of every game.
+    //The file is replaced in one step, a catalog that has it mapped keeps reading the old copy.
+    static int write(Path path, List<DigitalGame> games, TextIndex.Builder text) throws IOException {
+        int stamp = ThreadLocalRandom.current().nextInt() | 1;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            Map<String, Integer> ids = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            Map<Integer, int[]> postings = new HashMap<>();
+            long[] offsets = new long[games.size()];
+
+            writer.position(HEADER_SIZE);
+            for (int i = 0; i < offsets.length; i++) {
+                DigitalGame game = games.get(i);
+                String title = game.getTitle();
+                String description = game.getDescription();
+                String publisherNote = game.getPublisherNote();
+                offsets[i] = writer.position();
+                int[] tags = game.getTagIds();
+                writer.putRecord(game, title, description, publisherNote, tags, ids, dictionary);
+                if (text != null) {
+                    text.add(i, title, description, publisherNote);
+                }
+                for (int tag : tags) {
+                    addPosting(postings, writer.tagFileId(tag, ids, dictionary), i);
+                }
+            }
+
+            long dictionaryOffset = writer.position();
+            writer.putInt(dictionary.size());
+            for (String value : dictionary) {
+                writer.putString(value);
+            }
+
+            long indexOffset = writer.position();
+            for (long offset : offsets) {
+                writer.putLong(offset);
+            }
+
+            long postingsOffset = writer.position();
+            writer.putInt(postings.size());
+            for (Map.Entry<Integer, int[]> posting : postings.entrySet()) {
+                int[] records = posting.getValue();
+                writer.putInt(posting.getKey());
+                writer.putInt(records[0]);
+                for (int i = 1; i <= records[0]; i++) {
+                    writer.putInt(records[i]);
+                }
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(offsets.length).putInt(stamp).putLong(dictionaryOffset).putLong(indexOffset).putLong(postingsOffset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            //Forced before the move, a journal cut back to this snapshot must not outlive it
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stamp;
+    }
+
+    //Stamp of the file, 0 for files written before stamps were introduced
+    static int readStamp(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            readFully(channel, header, 0);
+            return header.hasRemaining() ? 0 : header.getInt(12);
+        }
+    }
+
+    static List<DigitalGame> read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("[ERROR] Extent file is too large");
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            readFully(channel, buffer, 0);
+            buffer.flip();
+        }
+
+        int count = readHeader(buffer);
+        int recordsEnd = (int) buffer.getLong(16);
+        String[] dictionary = readDictionary(buffer, recordsEnd);
+        readPostings(buffer, dictionary);
+        int[] tagIds = tagIds(dictionary);
+        List<DigitalGame> games = new ArrayList<>(count);
+        buffer.position(headerSize(buffer));
+        for (int i = 0; i < count; i++) {
+            games.add(readRecord(buffer, recordsEnd, dictionary, tagIds));
+        }
+        return games;
+    }
+
+    //Length prefixed record at the buffer's position, the buffer is left at the next record
+    static DigitalGame readRecord(ByteBuffer buffer, int recordsEnd, String[] dictionary, int[] tagIds) throws IOException {
+        int limit = buffer.limit();
+        try {
+            buffer.limit(recordsEnd);
+            int length = getVarInt(buffer);
+            int next = buffer.position() + length;
+            if (length <= 0 || next > recordsEnd) {
+                throw corrupt(null);
+            }
+            buffer.limit(next);
+            DigitalGame game = readRecord(buffer, dictionary, tagIds);
+            buffer.limit(limit).position(next);
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw corrupt(e);
+        } finally {
+            buffer.limit(limit);
+        }
+    }
+
+    //Returns the game count once every section offset is known to lie inside the file, in the order of the layout
+    static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE_V1 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("[ERROR] Not a game extent file");
+        }
+        int version = buffer.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("[ERROR] Unsupported extent file version " + version);
+        }
+        int headerSize = headerSize(buffer);
+        if (buffer.limit() < headerSize) {
+            throw corrupt(null);
+        }
+        int count = buffer.getInt(8);
+        long dictionaryOffset = buffer.getLong(16);
+        long indexOffset = buffer.getLong(24);
+        long indexEnd = indexOffset + 8L * count;
+        long end = version == 1 ? buffer.limit() : buffer.getLong(32);
+        if (count < 0 || dictionaryOffset < headerSize || indexOffset < dictionaryOffset || indexEnd != end || end > buffer.limit()) {
+            throw corrupt(null);
+        }
+        return count;
+    }
+
+    //Dictionary string -> position of the posting's game count. The postings run to the end of the file,
+    //so a truncated file is caught here even though loading never reads them.
+    static Map<String, Integer> readPostings(ByteBuffer buffer, String[] dictionary) throws IOException {
+        Map<String, Integer> offsets = new HashMap<>();
+        long position = postingsOffset(buffer);
+        if (position < 0) {
+            return offsets;
+        }
+        int limit = buffer.limit();
+        int tags = position + 4 <= limit ? buffer.getInt((int) position) : -1;
+        position += 4;
+        for (int i = 0; i < tags && position + 8 <= limit; i++) {
+            int tag = buffer.getInt((int) position);
+            int games = buffer.getInt((int) position + 4);
+            if (tag < 0 || tag >= dictionary.length || games < 0) {
+                throw corrupt(null);
+            }
+            offsets.put(dictionary[tag], (int) position + 4);
+            position += 8 + 4L * games;
+        }
+        if (tags < 0 || offsets.size() != tags || position != limit) {
+            throw corrupt(null);
+        }
+        return offsets;
+    }
+
+    static int headerSize(ByteBuffer buffer) {
+        return buffer.getInt(4) == 1 ? HEADER_SIZE_V1 : HEADER_SIZE;
+    }
+
+    //Offset of the postings section or -1 for files written before version 2
+    static long postingsOffset(ByteBuffer buffer) {
+        return buffer.getInt(4) == 1 ? -1 : buffer.getLong(32);
+    }
+
+    static String[] readDictionary(ByteBuffer buffer, long offset) throws IOException {
+        try {
+            buffer.position((int) offset);
+            int size = buffer.getInt();
+            //Every entry takes at least its length byte
+            if (size < 0 || size > buffer.remaining()) {
+                throw corrupt(null);
+            }
+            String[] dictionary = new String[size];
+            for (int i = 0; i < size; i++) {
+                dictionary[i] = getString(buffer);
+                if (dictionary[i] == null) {
+                    throw corrupt(null);
+                }
+            }
+            return dictionary;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw corrupt(e);
+        }
+    }
+
+    //File dictionary id -> TagDictionary id, filled in by readRecord the first time a tag is seen
+    static int[] tagIds(String[] dictionary) {
+        int[] tagIds = new int[dictionary.length];
+        Arrays.fill(tagIds, -1);
+        return tagIds;
+    }
+
+    //Tags are interned once per file and not once per record, every loaded game shares the dictionary's strings.
+    //Reads stop at the buffer's limit, so callers that know where the record ends set the limit there.
+    static DigitalGame readRecord(ByteBuffer buffer, String[] dictionary, int[] tagIds) throws IOException {
+        try {
+            return decodeRecord(buffer, dictionary, tagIds);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | DateTimeException e) {
+            //A field the setters reject can only come from a damaged file, the writer saw a valid game
+            throw corrupt(e);
+        }
+    }
+
+    private static DigitalGame decodeRecord(ByteBuffer buffer, String[] dictionary, int[] tagIds) {
+        String title = getString(buffer);
+        String description = getString(buffer);
+        String publisher = dictionary[getVarInt(buffer)];
+        long priceCents = getVarLong(buffer);
+        LocalDate releaseDate = LocalDate.ofEpochDay(zigZagDecode(getVarLong(buffer)));
+        String publisherNote = getString(buffer);
+        int tagCount = getVarInt(buffer);
+        if (tagCount < 0 || tagCount > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int[] themeTags = new int[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            int fileId = getVarInt(buffer);
+            int id = tagIds[fileId];
+            if (id < 0) {
+                id = TagDictionary.intern(dictionary[fileId]);
+                tagIds[fileId] = id;
+            }
+            themeTags[i] = id;
+        }
+        return DigitalGame.restore(title, publisher, description, priceCents, releaseDate, themeTags, publisherNote);
+    }
+
+    static IOException corrupt(RuntimeException cause) {
+        return new IOException("[ERROR] Extent file is corrupt", cause);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    //Postings are kept as growable arrays whose first slot holds the number of used entries
+    private static void addPosting(Map<Integer, int[]> postings, int tagId, int game) {
+        int[] games = postings.get(tagId);
+        if (games == null) {
+            games = new int[4];
+        } else if (games[games[0]] == game) {
+            return;
+        } else if (games[0] + 1 == games.length) {
+            games = Arrays.copyOf(games, games.length * 2);
+        }
+        games[++games[0]] = game;
+        postings.put(tagId, games);
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> dictionary) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = dictionary.size();
+            ids.put(value, id);
+            dictionary.add(value);
+        }
+        return id;
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static class Writer {
+        private final FileChannel channel;
+        private ByteBuffer buffer;
+        private ByteBuffer scratch = ByteBuffer.allocate(256);
+        private int[] tagFileIds = new int[0];
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        //Keeps everything in a growing heap buffer instead of writing a file, see written()
+        Writer() {
+            this.channel = null;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        ByteBuffer written() {
+            return buffer.duplicate().flip();
+        }
+
+        long position() {
+            return position + buffer.position();
+        }
+
+        void position(long position) throws IOException {
+            flush();
+            this.position = position;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(5);
+            putVarLong(buffer, bytes.length + 1);
+            putBytes(bytes, bytes.length);
+        }
+
+        void putVarint(long value) throws IOException {
+            ensure(10);
+            putVarLong(buffer, value);
+        }
+
+        //TagDictionary id -> file dictionary id + 1, so each tag name is looked up once per file
+        int tagFileId(int tagId, Map<String, Integer> ids, List<String> dictionary) {
+            if (tagId >= tagFileIds.length) {
+                tagFileIds = Arrays.copyOf(tagFileIds, Math.max(tagId + 1, tagFileIds.length * 2));
+            }
+            int id = tagFileIds[tagId] - 1;
+            if (id < 0) {
+                id = intern(TagDictionary.name(tagId), ids, dictionary);
+                tagFileIds[tagId] = id + 1;
+            }
+            return id;
+        }
+
+        void putRecord(DigitalGame game, String titleText, String descriptionText, String noteText, int[] tags, Map<String, Integer> ids, List<String> dictionary) throws IOException {
+            byte[] title = titleText.getBytes(StandardCharsets.UTF_8);
+            byte[] description = descriptionText.getBytes(StandardCharsets.UTF_8);
+            byte[] note = noteText == null ? null : noteText.getBytes(StandardCharsets.UTF_8);
+
+            int maxLength = title.length + description.length + (note == null ? 0 : note.length) + 5 * (6 + tags.length) + 20;
+            if (scratch.capacity() < maxLength) {
+                scratch = ByteBuffer.allocate(Math.max(maxLength, scratch.capacity() * 2));
+            }
+            scratch.clear();
+            putBytes(scratch, title);
+            putBytes(scratch, description);
+            putVarLong(scratch, intern(game.getPublisher(), ids, dictionary));
+            putVarLong(scratch, game.getPriceCents());
+            putVarLong(scratch, zigZagEncode(game.getReleaseDate().toEpochDay()));
+            putBytes(scratch, note);
+            putVarLong(scratch, tags.length);
+            for (int tag : tags) {
+                putVarLong(scratch, tagFileId(tag, ids, dictionary));
+            }
+
+            ensure(5);
+            putVarLong(buffer, scratch.position());
+            putBytes(scratch.array(), scratch.position());
+        }
+
+        static void putBytes(ByteBuffer target, byte[] bytes) {
+            if (bytes == null) {
+                putVarLong(target, 0);
+                return;
+            }
+            putVarLong(target, bytes.length + 1);
+            target.put(bytes);
+        }
+
+        private void putBytes(byte[] bytes, int length) throws IOException {
+            if (length > buffer.remaining() && channel == null) {
+                grow(length);
+            } else if (length > buffer.remaining()) {
+                flush();
+                if (length > buffer.capacity()) {
+                    ByteBuffer large = ByteBuffer.wrap(bytes, 0, length);
+                    while (large.hasRemaining()) {
+                        position += channel.write(large, position);
+                    }
+                    return;
+                }
+            }
+            buffer.put(bytes, 0, length);
+        }
+
+        void flush() throws IOException {
+            if (channel == null) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes && channel == null) {
+                grow(bytes);
+            } else if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void grow(int bytes) {
+            int used = buffer.position();
+            buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), Math.max(buffer.capacity() * 2, used + bytes))).position(used);
+        }
+    }
+}
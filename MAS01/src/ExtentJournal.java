@@ -0,0 +1,330 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+//Append-only log of extent mutations made since the last snapshot.
+//Every record is: payload length, CRC32 of the payload, operation, game ordinal, operation data.
+//A save appends a SYNC mark. Replay applies the records up to the last mark and drops the rest, they were never saved.
+//Replay skips changes that are already part of the snapshot, so a compaction racing with writers is harmless.
+public class ExtentJournal implements Closeable {
+    //Attributes
+    static final int CREATE = 1;
+    static final int TITLE = 2;
+    static final int PUBLISHER = 3;
+    static final int DESCRIPTION = 4;
+    static final int PRICE = 5;
+    static final int RELEASE_DATE = 6;
+    static final int PUBLISHER_NOTE = 7;
+    static final int ADD_TAG = 8;
+    static final int REMOVE_TAG = 9;
+    static final int SYNC = 10;
+    private static final long COMPACTION_THRESHOLD = 4L << 20;
+    private static final Metrics.Histogram syncLatency = Metrics.histogram("journal.sync");
+    private static final Metrics.Histogram replayLatency = Metrics.histogram("journal.replay");
+    private static final Metrics.Histogram compactLatency = Metrics.histogram("journal.compact");
+
+    private final Catalog catalog;
+    private final Path snapshot;
+    private final Path path;
+    private FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    private ExtentJournal(Catalog catalog, Path snapshot) throws IOException {
+        this.catalog = catalog;
+        this.snapshot = snapshot;
+        this.path = snapshot.resolveSibling(snapshot.getFileName() + ".journal");
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    //Journal of the default catalog
+    public static ExtentJournal open(Path snapshot) throws IOException {
+        return open(Catalog.getDefault(), snapshot);
+    }
+
+    //Replay and compaction work on the given catalog, attach the journal to the same one
+    public static ExtentJournal open(Catalog catalog, Path snapshot) throws IOException {
+        return new ExtentJournal(catalog, snapshot);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    synchronized void appendCreate(DigitalGame game) throws IOException {
+        List<String> tags = game.getThemeTags();
+        start(CREATE, game.getOrdinal(), game.getTitle().length() + game.getDescription().length() + 64 * (tags.size() + 2));
+        putString(game.getTitle());
+        putString(game.getPublisher());
+        putString(game.getDescription());
+        put(game.getPriceCents());
+        put(ExtentFile.zigZagEncode(game.getReleaseDate().toEpochDay()));
+        putString(game.getPublisherNote());
+        put(tags.size());
+        for (String tag : tags) {
+            putString(tag);
+        }
+        finish();
+    }
+
+    synchronized void append(int operation, int ordinal, String value) throws IOException {
+        start(operation, ordinal, value == null ? 0 : value.length() * 3);
+        putString(value);
+        finish();
+    }
+
+    synchronized void append(int operation, int ordinal, long value) throws IOException {
+        start(operation, ordinal, 0);
+        put(ExtentFile.zigZagEncode(value));
+        finish();
+    }
+
+    //Marks the records so far as saved and forces them to the disk, this is what a save costs while the journal is
+    //attached. Past the threshold the save writes a new snapshot instead, which holds exactly the saved changes.
+    public synchronized void sync() throws IOException {
+        long started = Metrics.start();
+        start(SYNC, 0, 0);
+        finish();
+        channel.force(false);
+        syncLatency.recordSince(started);
+        if (channel.size() > COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    //Applies the saved part of the journal to the current extent. Records after the last SYNC mark and a torn record
+    //at the tail are cut off, so loading goes back to the last save.
+    //Must run while the journal is detached, otherwise the replayed changes would be appended again.
+    public int replay() throws IOException {
+        long started = Metrics.start();
+        ByteBuffer records;
+        synchronized (this) {
+            records = ByteBuffer.allocate((int) channel.size());
+            ExtentFile.readFully(channel, records, 0);
+            records.flip();
+        }
+
+        int applied = 0;
+        int saved = 0;
+        List<ByteBuffer> unsaved = new ArrayList<>();
+        CRC32 checksum = new CRC32();
+        while (records.remaining() >= 8) {
+            int start = records.position();
+            int length = records.getInt();
+            long expected = records.getInt() & 0xFFFFFFFFL;
+            if (length < 0 || length > records.remaining()) {
+                records.position(start);
+                break;
+            }
+            checksum.reset();
+            checksum.update(records.array(), records.position(), length);
+            if (checksum.getValue() != expected) {
+                records.position(start);
+                break;
+            }
+            ByteBuffer record = records.slice(records.position(), length);
+            records.position(records.position() + length);
+            if (length == 0 || record.get(0) != SYNC) {
+                unsaved.add(record);
+                continue;
+            }
+            for (ByteBuffer change : unsaved) {
+                if (apply(change)) {
+                    applied++;
+                }
+            }
+            unsaved.clear();
+            saved = records.position();
+        }
+
+        synchronized (this) {
+            if (saved < channel.size()) {
+                channel.truncate(saved);
+            }
+            channel.position(saved);
+        }
+        replayLatency.recordSince(started);
+        return applied;
+    }
+
+    //Writes the extent as a new snapshot and drops the journal records it covers, like a full save. Writers keep
+    //appending meanwhile: every record below the mark was applied in memory before the snapshot started.
+    public void compact() throws IOException {
+        long start = Metrics.start();
+        long covered = size();
+        //The snapshot keeps the format it was saved in, both write their text index sidecar
+        if (Files.exists(snapshot) && SnapshotFile.isSnapshotFile(snapshot)) {
+            catalog.saveSnapshot(snapshot);
+        } else {
+            Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            catalog.saveExtent(temporary);
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(TextIndex.sidecar(temporary), TextIndex.sidecar(snapshot), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        synchronized (this) {
+            ByteBuffer tail = ByteBuffer.allocate((int) (channel.size() - covered));
+            ExtentFile.readFully(channel, tail, covered);
+            tail.flip();
+            Path rest = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel restChannel = FileChannel.open(rest, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (tail.hasRemaining()) {
+                    restChannel.write(tail);
+                }
+                restChannel.force(true);
+            }
+            Files.move(rest, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        compactLatency.recordSince(start);
+    }
+
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    //A record the loaded games cannot take means the journal belongs to another file
+    private boolean apply(ByteBuffer record) throws IOException {
+        try {
+            return applyChange(record);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException | BufferUnderflowException e) {
+            throw new IOException("[ERROR] Journal does not match the loaded games", e);
+        }
+    }
+
+    private boolean applyChange(ByteBuffer record) throws IOException {
+        int operation = record.get();
+        int ordinal = ExtentFile.getVarInt(record);
+        List<DigitalGame> games = catalog.getAllGames();
+        if (operation == CREATE) {
+            //Games below the size are in the snapshot already, a gap means records are missing
+            if (ordinal < games.size()) {
+                return false;
+            }
+            if (ordinal > games.size()) {
+                throw new IOException("[ERROR] Journal does not match the loaded games");
+            }
+            String title = getString(record);
+            String publisher = getString(record);
+            String description = getString(record);
+            double price = ExtentFile.getVarLong(record) / 100d;
+            LocalDate releaseDate = LocalDate.ofEpochDay(ExtentFile.zigZagDecode(ExtentFile.getVarLong(record)));
+            String publisherNote = getString(record);
+            int tagCount = ExtentFile.getVarInt(record);
+            List<String> tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(getString(record));
+            }
+            new DigitalGame(catalog, title, publisher, description, price, releaseDate, tags, publisherNote);
+            return true;
+        }
+        if (ordinal >= games.size()) {
+            throw new IOException("[ERROR] Journal does not match the loaded games");
+        }
+
+        DigitalGame game = games.get(ordinal);
+        switch (operation) {
+            case TITLE -> game.setTitle(getString(record));
+            case PUBLISHER -> game.setPublisher(getString(record));
+            case DESCRIPTION -> game.setDescription(getString(record));
+            case PRICE -> game.setPriceCents(ExtentFile.zigZagDecode(ExtentFile.getVarLong(record)));
+            case RELEASE_DATE -> game.setReleaseDate(LocalDate.ofEpochDay(ExtentFile.zigZagDecode(ExtentFile.getVarLong(record))));
+            case PUBLISHER_NOTE -> game.setPublisherNote(getString(record));
+            case ADD_TAG -> {
+                String tag = getString(record);
+                if (game.getThemeTags().contains(tag)) {
+                    return false;
+                }
+                game.addThemeTag(tag);
+            }
+            case REMOVE_TAG -> {
+                String tag = getString(record);
+                if (!game.getThemeTags().contains(tag)) {
+                    return false;
+                }
+                game.removeThemeTag(tag);
+            }
+            default -> throw new IOException("[ERROR] Unknown journal operation " + operation);
+        }
+        return true;
+    }
+
+    private void start(int operation, int ordinal, int expectedSize) {
+        if (buffer.capacity() < expectedSize + 32) {
+            buffer = ByteBuffer.allocate(Math.max(expectedSize + 32, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.position(8);
+        buffer.put((byte) operation);
+        put(ordinal);
+    }
+
+    private void finish() throws IOException {
+        int length = buffer.position() - 8;
+        crc.reset();
+        crc.update(buffer.array(), 8, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void put(long value) {
+        ensure(10);
+        ExtentFile.putVarLong(buffer, value);
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            put(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        put(bytes.length + 1);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        return ExtentFile.getString(record);
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//Combines price and release date ranges, a publisher and tags. The predicate with the fewest matching games
+//drives the lookup through its index and the other predicates are checked on each candidate.
+public class GameQuery {
+    //Attributes
+    private long minPriceCents = Long.MIN_VALUE;
+    private long maxPriceCents = Long.MAX_VALUE;
+    private long fromEpochDay = Long.MIN_VALUE;
+    private long toEpochDay = Long.MAX_VALUE;
+    private String publisher = null;
+    private final List<String> tags = new ArrayList<>();
+
+    //Inclusive range in EUR, null leaves that end open
+    public GameQuery priceBetween(Double min, Double max) {
+        long minCents = min == null ? Long.MIN_VALUE : (long) Math.ceil(min * 100 - 1e-6);
+        long maxCents = max == null ? Long.MAX_VALUE : (long) Math.floor(max * 100 + 1e-6);
+        if (minCents > maxCents) {
+            throw new IllegalArgumentException("[ERROR] Invalid price range");
+        }
+        this.minPriceCents = minCents;
+        this.maxPriceCents = maxCents;
+        return this;
+    }
+
+    //Inclusive range of release dates, null leaves that end open
+    public GameQuery releasedBetween(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("[ERROR] Invalid date range");
+        }
+        this.fromEpochDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        this.toEpochDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        return this;
+    }
+
+    public GameQuery releasedIn(int year) {
+        return releasedBetween(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    public GameQuery publisher(String publisher) {
+        if (publisher == null || publisher.isBlank()) {
+            throw new IllegalArgumentException("[ERROR] Publisher cannot be null or empty");
+        }
+        this.publisher = publisher;
+        return this;
+    }
+
+    public GameQuery withTag(String tag) {
+        if (tag == null || tag.isBlank()) {
+            throw new IllegalArgumentException("[ERROR] Theme tag cannot be null or empty");
+        }
+        tags.add(tag.trim());
+        return this;
+    }
+
+    //Matching games in extent order
+    public List<DigitalGame> find() {
+        return find(Catalog.getDefault());
+    }
+
+    public List<DigitalGame> find(Catalog catalog) {
+        return catalog.find(this);
+    }
+
+    List<DigitalGame> execute(List<DigitalGame> games, TagIndex tagIndex, SecondaryIndexes indexes) {
+        Collection<Posting> driver = null;
+        int best = Integer.MAX_VALUE;
+        //A range spans several keys, counting its postings through the skip list view would walk it again
+        boolean ranged = false;
+
+        int[] tagIds = new int[tags.size()];
+        for (int i = 0; i < tagIds.length; i++) {
+            tagIds[i] = TagDictionary.find(tags.get(i));
+            Posting posting = tagIds[i] < 0 ? null : tagIndex.posting(tagIds[i]);
+            if (posting == null) {
+                return List.of();
+            }
+            if (posting.size() < best) {
+                driver = List.of(posting);
+                best = posting.size();
+                ranged = false;
+            }
+        }
+        if (publisher != null) {
+            Posting posting = indexes.publisher(publisher);
+            if (posting == null) {
+                return List.of();
+            }
+            if (posting.size() < best) {
+                driver = List.of(posting);
+                best = posting.size();
+                ranged = false;
+            }
+        }
+        //Range sizes are only counted as far as needed to know they lose against the best candidate so far
+        if (hasPriceRange()) {
+            Collection<Posting> postings = indexes.prices(minPriceCents, maxPriceCents);
+            int count = Posting.count(postings, best);
+            if (count < best) {
+                driver = postings;
+                best = count;
+                ranged = true;
+            }
+        }
+        if (hasDateRange()) {
+            Collection<Posting> postings = indexes.releaseDates(fromEpochDay, toEpochDay);
+            int count = Posting.count(postings, best);
+            if (count < best) {
+                driver = postings;
+                best = count;
+                ranged = true;
+            }
+        }
+
+        if (driver == null) {
+            return List.copyOf(games);
+        }
+        List<DigitalGame> result = new ArrayList<>(best);
+        for (Posting posting : driver) {
+            for (DigitalGame game : posting.games()) {
+                if (matches(game, tagIds)) {
+                    result.add(game);
+                }
+            }
+        }
+        if (ranged) {
+            return distinct(result);
+        }
+        return List.copyOf(result);
+    }
+
+    //A game moving to another key is added there before it leaves the old one, a range scan may meet it under both
+    private static List<DigitalGame> distinct(List<DigitalGame> games) {
+        games.sort(Posting.EXTENT_ORDER);
+        List<DigitalGame> result = new ArrayList<>(games.size());
+        for (DigitalGame game : games) {
+            if (result.isEmpty() || result.getLast() != game) {
+                result.add(game);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private boolean matches(DigitalGame game, int[] tagIds) {
+        long cents = game.getPriceCents();
+        long epochDay = game.getReleaseDate().toEpochDay();
+        if (cents < minPriceCents || cents > maxPriceCents || epochDay < fromEpochDay || epochDay > toEpochDay) {
+            return false;
+        }
+        if (publisher != null && !publisher.equals(game.getPublisher())) {
+            return false;
+        }
+        for (int tagId : tagIds) {
+            if (!game.hasTag(tagId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasPriceRange() {
+        return minPriceCents != Long.MIN_VALUE || maxPriceCents != Long.MAX_VALUE;
+    }
+
+    private boolean hasDateRange() {
+        return fromEpochDay != Long.MIN_VALUE || toEpochDay != Long.MAX_VALUE;
+    }
+}
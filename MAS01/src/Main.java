@@ -1,29 +1,42 @@
 package org.example;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Scanner;
 
 public class Main {
     private final static String fileName = "gamesProperties";
+    private final static String ratesFileName = "exchangeRates";
+    private static ExtentJournal journal = null;
 
     public static void main(String[] args) {
+        Metrics.registerMBean();
+        loadExchangeRates();
         Scanner sc = new Scanner(System.in);
         while(true){
             System.out.println("================ Choose an option ================");
             System.out.println("1) Create a new game");
             System.out.println("2) Search for similar games");
             System.out.println("3) Show all games");
-            System.out.println("4) Save games");
+            System.out.println("4) Save games (compressed)");
             System.out.println("5) Load games");
             System.out.println("6) Add tags");
             System.out.println("7) Remove tags");
             System.out.println("8) Set currency");
+            System.out.println("9) Open games (memory-mapped)");
+            System.out.println("10) Export games");
+            System.out.println("11) Search games");
+            System.out.println("12) Import games");
+            System.out.println("13) Show metrics");
+            System.out.println("14) Save games (memory-mappable)");
             System.out.println("0) Exit");
             System.out.println("==================================================");
             var option = sc.next();
-            if(!option.matches("\\d+") || Integer.parseInt(option) < 0 || Integer.parseInt(option) > 10) {
+            if(!option.matches("\\d+") || Integer.parseInt(option) < 0 || Integer.parseInt(option) > 14) {
                 System.out.println("[ERROR] Invalid option");
                 continue;
             }
@@ -35,7 +48,7 @@ public class Main {
                     DigitalGame.findWithSimilarTag(tag).forEach(System.out::println);
                 }
                 case 3 -> DigitalGame.show();
-                case 4 -> saveGames();
+                case 4 -> saveGames(false);
                 case 5 -> loadGames();
                 case 6 -> addTags();
                 case 7 -> removeTags();
@@ -45,14 +58,43 @@ public class Main {
                         var currency = sc.next();
                         DigitalGame.setCurrency(currency);
                         System.out.println("== Global currency successfully set ==");
+                        if (!ExchangeRates.hasRate(currency)) {
+                            System.out.println("[WARNING] No exchange rate for " + currency + ", prices are shown in " + ExchangeRates.BASE_CURRENCY);
+                        }
                     } catch (IllegalArgumentException e) {
                         System.out.println(e.getMessage());
                     }
                 }
+                case 9 -> openGames();
+                case 10 -> {
+                    System.out.println("Enter export format (text, csv, jsonl): ");
+                    exportGames(sc.next());
+                }
+                case 11 -> {
+                    System.out.println("Enter a word to search for (end it with * to match by prefix): ");
+                    DigitalGame.search(sc.next(), 10).forEach(System.out::println);
+                }
+                case 12 -> {
+                    System.out.println("Enter the path of a .csv or .jsonl file: ");
+                    importGames(sc.next());
+                }
+                case 13 -> System.out.print(Metrics.dump());
+                case 14 -> saveGames(true);
                 case 0 -> System.exit(0);
             }
         }
     }
+    private static void loadExchangeRates(){
+        if (!Files.exists(Path.of(ratesFileName))) {
+            return;
+        }
+        try {
+            ExchangeRates.load(Path.of(ratesFileName));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     private static void createGame(){
         try {
             new DigitalGame("The Witcher 3", "CD Project Red", "Game about some witcher dudes", 40d, LocalDate.of(2015, 5, 13), Arrays.asList("Action", "Adventure", "Magic"));
@@ -65,10 +107,24 @@ public class Main {
         }
     }
 
-    private static void saveGames(){
-        try(ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileName))){
-            DigitalGame.saveExtent(oos);
-            oos.close();
+    //Compressed snapshots are smaller, extent files can be opened memory-mapped
+    private static void saveGames(boolean mappable){
+        try {
+            Path path = Path.of(fileName);
+            if (journal != null && savedAs(path, mappable)) {
+                journal.sync();
+            } else {
+                if (mappable) {
+                    DigitalGame.saveExtent(path);
+                } else {
+                    DigitalGame.saveSnapshot(path);
+                }
+                if (journal == null) {
+                    journal = ExtentJournal.open(path);
+                    DigitalGame.attachJournal(journal);
+                }
+                journal.reset();
+            }
             System.out.println("== Games successfully saved ==");
         } catch (IOException e) {
             System.err.println(e.getMessage());
@@ -76,15 +132,91 @@ public class Main {
     }
 
     private static void loadGames(){
-        try(ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileName))){
-            DigitalGame.loadExtent(ois);
-            ois.close();
+        try {
+            DigitalGame.detachJournal();
+            if (SnapshotFile.isSnapshotFile(Path.of(fileName))) {
+                DigitalGame.loadSnapshot(Path.of(fileName));
+            } else if (ExtentFile.isExtentFile(Path.of(fileName))) {
+                DigitalGame.loadExtent(Path.of(fileName));
+            } else {
+                importLegacyGames();
+            }
+            replayJournal();
             System.out.println("== Games successfully loaded ==");
         } catch (IOException | ClassNotFoundException e) {
             System.out.println(e.getMessage());
         }
     }
 
+    private static void openGames(){
+        try {
+            if (SnapshotFile.isSnapshotFile(Path.of(fileName))) {
+                System.out.println("[ERROR] Compressed games cannot be memory-mapped, save them with option 14 first");
+                return;
+            }
+            DigitalGame.detachJournal();
+            DigitalGame.openExtent(Path.of(fileName));
+            replayJournal();
+            System.out.println("== Games successfully opened ==");
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static void exportGames(String format){
+        try {
+            CatalogRenderer.Format exportFormat = CatalogRenderer.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            Path path = Path.of(fileName + "." + exportFormat.name().toLowerCase(Locale.ROOT));
+            DigitalGame.exportExtent(path, exportFormat);
+            System.out.println("== Games successfully exported to " + path + " ==");
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERROR] Invalid export format");
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static void importGames(String file){
+        try {
+            CatalogImporter.Report report = CatalogImporter.forPath(Path.of(file)).importFrom(Path.of(file));
+            report.errors().stream().limit(10).forEach(error -> System.out.println("Line " + error.line() + ": " + error.message()));
+            if (report.errors().size() > 10) {
+                System.out.println("... and " + (report.errors().size() - 10) + " more rows with errors");
+            }
+            System.out.printf(Locale.ROOT, "== %d of %d games imported (%.0f rows/s) ==%n", report.imported(), report.rows(), report.rowsPerSecond());
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    //Changes saved after the last snapshot are read back from the journal, which then keeps recording new ones.
+    //A journal that does not match the file is left alone, the next save writes the whole extent and starts it over.
+    private static void replayJournal() throws IOException {
+        if (journal == null) {
+            journal = ExtentJournal.open(Path.of(fileName));
+        }
+        try {
+            journal.replay();
+        } catch (IOException e) {
+            journal.close();
+            journal = null;
+            throw e;
+        }
+        DigitalGame.attachJournal(journal);
+    }
+
+    //The journal is replayed onto the file it was started for, saving in the other format or over a file written with
+    //ObjectOutputStream writes the whole extent again
+    private static boolean savedAs(Path path, boolean mappable) throws IOException {
+        return Files.exists(path) && (mappable ? ExtentFile.isExtentFile(path) : SnapshotFile.isSnapshotFile(path));
+    }
+
+    private static void importLegacyGames() throws IOException, ClassNotFoundException {
+        try(ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileName))){
+            DigitalGame.loadExtent(ois);
+        }
+    }
+
     private static void removeTags(){
         try {
             DigitalGame.getAllGames().getFirst().removeThemeTag("Action");
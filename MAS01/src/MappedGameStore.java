@@ -0,0 +1,273 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+//View of an extent file, games are decoded from the mapping when they are accessed. Decoded games are only softly
+//reachable from the store, so the heap holds the games in use and not the whole file. Games that were changed or
+//added since the file was opened are kept in the overlay, their state is no longer the one in the file.
+class MappedGameStore extends AbstractList<DigitalGame> implements RandomAccess {
+    //Attributes
+    private final MappedByteBuffer buffer;
+    private final Catalog catalog;
+    private final int generation;
+    private final int stored;
+    //Appends are serialized by the catalog's write lock, the game is in the overlay before the size covers it
+    private volatile int size;
+    private final int recordsEnd;
+    private final long indexOffset;
+    private final String[] dictionary;
+    private final int[] tagIds;
+    private final boolean hasPostings;
+    private final Map<String, Integer> postingOffsets;
+    private final Map<Integer, Decoded> decoded = new ConcurrentHashMap<>();
+    private final ReferenceQueue<DigitalGame> cleared = new ReferenceQueue<>();
+    private final ConcurrentSkipListMap<Integer, DigitalGame> overlay = new ConcurrentSkipListMap<>();
+
+    private static class Decoded extends SoftReference<DigitalGame> {
+        private final int index;
+
+        Decoded(DigitalGame game, int index, ReferenceQueue<DigitalGame> queue) {
+            super(game, queue);
+            this.index = index;
+        }
+    }
+
+    private MappedGameStore(MappedByteBuffer buffer, Catalog catalog, int generation) throws IOException {
+        this.buffer = buffer;
+        this.catalog = catalog;
+        this.generation = generation;
+        this.stored = ExtentFile.readHeader(buffer);
+        this.size = stored;
+        this.recordsEnd = (int) buffer.getLong(16);
+        this.indexOffset = buffer.getLong(24);
+        this.dictionary = ExtentFile.readDictionary(buffer.duplicate(), recordsEnd);
+        //Racing decodes may both intern a tag, they store the same id
+        this.tagIds = ExtentFile.tagIds(dictionary);
+
+        this.hasPostings = ExtentFile.postingsOffset(buffer) >= 0;
+        //Only the posting headers are checked here, record numbers are checked when a posting is read
+        this.postingOffsets = ExtentFile.readPostings(buffer, dictionary);
+    }
+
+    static MappedGameStore open(Path path, Catalog catalog, int generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("[ERROR] Extent file is too large to be mapped");
+            }
+            return new MappedGameStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), catalog, generation);
+        }
+    }
+
+    @Override
+    public DigitalGame get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        DigitalGame game = overlay.get(index);
+        if (game == null) {
+            Decoded reference = decoded.get(index);
+            game = reference == null ? null : reference.get();
+        }
+        return game != null ? game : decodeOnce(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //Called by the catalog for a game added while the extent is mapped
+    @Override
+    public boolean add(DigitalGame game) {
+        overlay.put(size, game);
+        size++;
+        return true;
+    }
+
+    //Called before a game of the store is changed. A game handed out is strongly reachable, so its soft reference
+    //is still set and it is the only instance of its record. Games of an older extent are not this record's game.
+    void pin(DigitalGame game) {
+        int index = game.getOrdinal();
+        if (index < stored && !overlay.containsKey(index) && get(index) == game) {
+            overlay.putIfAbsent(index, game);
+        }
+    }
+
+    //Games of the current size, the view does not grow with later appends
+    List<DigitalGame> snapshot() {
+        return subList(0, size);
+    }
+
+    List<DigitalGame> find(String tag) {
+        return games(postings(tag));
+    }
+
+    List<DigitalGame> findAll(List<String> tags) {
+        int[][] lists = new int[tags.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings(tags.get(i));
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+
+        int[] result = lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = intersect(result, lists[i]);
+        }
+        return games(result);
+    }
+
+    List<DigitalGame> findAny(List<String> tags) {
+        int[] result = new int[0];
+        for (String tag : tags) {
+            result = union(result, postings(tag));
+        }
+        return games(result);
+    }
+
+    //Decodes every game that is not on the heap yet so the extent can move back to the heap
+    List<DigitalGame> materializeAll() {
+        return new ArrayList<>(snapshot());
+    }
+
+    //Racing decodes of one record agree on one game, a reference cleared by the collector is decoded again
+    private DigitalGame decodeOnce(int index) {
+        for (Reference<? extends DigitalGame> reference; (reference = cleared.poll()) != null; ) {
+            decoded.remove(((Decoded) reference).index, reference);
+        }
+        DigitalGame[] game = new DigitalGame[1];
+        decoded.compute(index, (key, reference) -> {
+            game[0] = reference == null ? null : reference.get();
+            if (game[0] != null) {
+                return reference;
+            }
+            game[0] = decode(key);
+            return new Decoded(game[0], key, cleared);
+        });
+        return game[0];
+    }
+
+    //Games are decoded inside list and query calls, so a damaged record surfaces as an UncheckedIOException
+    private DigitalGame decode(int index) {
+        try {
+            long offset = buffer.getLong((int) indexOffset + 8 * index);
+            if (offset < ExtentFile.headerSize(buffer) || offset >= recordsEnd) {
+                throw ExtentFile.corrupt(null);
+            }
+            ByteBuffer record = buffer.duplicate();
+            record.position((int) offset);
+            DigitalGame game = ExtentFile.readRecord(record, recordsEnd, dictionary, tagIds);
+            game.register(catalog, index, generation);
+            return game;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Postings of the file, with the games of the overlay placed by their current tags
+    private int[] postings(String tag) {
+        if (!hasPostings) {
+            return scan(tag);
+        }
+        int[] games = storedPostings(tag);
+        if (overlay.isEmpty()) {
+            return games;
+        }
+        int tagId = TagDictionary.find(tag);
+        int count = 0;
+        for (int index : games) {
+            if (!overlay.containsKey(index)) {
+                games[count++] = index;
+            }
+        }
+        int[] changed = overlay.entrySet().stream().filter(entry -> entry.getValue().hasTag(tagId)).mapToInt(Map.Entry::getKey).toArray();
+        return union(Arrays.copyOf(games, count), changed);
+    }
+
+    private int[] storedPostings(String tag) {
+        Integer offset = postingOffsets.get(tag);
+        if (offset == null) {
+            return new int[0];
+        }
+        int[] games = new int[buffer.getInt(offset)];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = buffer.getInt(offset + 4 + 4 * i);
+            if (games[i] < 0 || games[i] >= stored) {
+                throw new UncheckedIOException(ExtentFile.corrupt(null));
+            }
+        }
+        return games;
+    }
+
+    //Files written before version 2 carry no postings, so their records have to be checked one by one
+    private int[] scan(String tag) {
+        int tagId = TagDictionary.find(tag);
+        int current = size;
+        int[] games = new int[current];
+        int count = 0;
+        for (int i = 0; i < current && tagId >= 0; i++) {
+            if (get(i).hasTag(tagId)) {
+                games[count++] = i;
+            }
+        }
+        return Arrays.copyOf(games, count);
+    }
+
+    private List<DigitalGame> games(int[] indexes) {
+        List<DigitalGame> games = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            games.add(get(index));
+        }
+        return games;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,289 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+//Process-wide counters, gauges and latency histograms. Recording is a volatile read when metrics are disabled,
+//and striped adders or per-bucket atomics when enabled, so hot paths never contend on one shared variable.
+public final class Metrics {
+    //Attributes
+    static final String OBJECT_NAME = "org.example:type=Metrics";
+    private static volatile boolean enabled = !"false".equals(System.getProperty("metrics.enabled"));
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    //Start of a timed section, 0 when disabled so the matching recordSince does nothing
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    //Counters and gauges by name, sorted
+    static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    static Map<String, Snapshot> histogramSnapshots() {
+        Map<String, Snapshot> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return values;
+    }
+
+    static void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    static String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Metrics ").append(enabled ? "enabled" : "disabled").append('\n');
+        counterValues().forEach((name, value) -> sb.append(String.format(Locale.ROOT, "%-36s %12d%n", name, value)));
+        histogramSnapshots().forEach((name, snapshot) -> sb.append(String.format(Locale.ROOT, "%-36s %s%n", name, snapshot)));
+        return sb.toString();
+    }
+
+    //Exposes the snapshots under OBJECT_NAME, a second registration is ignored
+    static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("[ERROR] Metrics could not be registered: " + e.getMessage());
+        }
+    }
+
+    static class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        void increment() {
+            if (enabled) {
+                adder.increment();
+            }
+        }
+
+        void add(long value) {
+            if (enabled) {
+                adder.add(value);
+            }
+        }
+
+        long sum() {
+            return adder.sum();
+        }
+
+        void reset() {
+            adder.reset();
+        }
+    }
+
+    //Log-linear buckets like HdrHistogram: below 2^SUB_BITS every value has its own bucket, above it every power of two
+    //is split into 2^SUB_BITS buckets, so a recorded value is off by at most 1/2^SUB_BITS (about 3%).
+    static class Histogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void recordSince(long start) {
+            if (start != 0) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        void record(long value) {
+            if (!enabled) {
+                return;
+            }
+            value = Math.max(0, value);
+            counts.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        //Highest value that falls into the bucket
+        static long highestValue(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+
+        //Buckets are read one by one while others record, so the percentiles describe a nearly consistent state
+        Snapshot snapshot() {
+            long[] copy = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = counts.get(i);
+                total += copy[i];
+            }
+            long recorded = count.sum();
+            double mean = recorded == 0 ? 0 : (double) sum.sum() / recorded;
+            long highest = max.get();
+            return new Snapshot(total, mean, percentile(copy, total, 0.5, highest), percentile(copy, total, 0.9, highest),
+                    percentile(copy, total, 0.99, highest), percentile(copy, total, 0.999, highest), highest);
+        }
+
+        //Upper edge of the bucket holding the rank, but never above the largest value actually recorded
+        private static long percentile(long[] counts, long total, double quantile, long max) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    //Latencies in nanoseconds. Getters so JMX can map it to composite data.
+    public static final class Snapshot {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    count, mean / 1e3, p50 / 1e3, p90 / 1e3, p99 / 1e3, p999 / 1e3, max / 1e3);
+        }
+    }
+
+    private static class Bean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean value) {
+            Metrics.setEnabled(value);
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            return counterValues();
+        }
+
+        @Override
+        public Map<String, Snapshot> getLatencies() {
+            return histogramSnapshots();
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
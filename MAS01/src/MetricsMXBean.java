@@ -0,0 +1,18 @@
+package org.example;
+
+import java.util.Map;
+
+//JMX view of Metrics, registered as org.example:type=Metrics
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getCounters();
+
+    Map<String, Metrics.Snapshot> getLatencies();
+
+    String dump();
+
+    void reset();
+}
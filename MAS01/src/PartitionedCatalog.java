@@ -0,0 +1,195 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+//A catalog split over independent Catalogs. Every game lives in one partition picked by the hash of its publisher
+//or of its first tag when it is added, and stays there when the key changes later. Queries therefore run on all
+//partitions in parallel and the results are concatenated in partition order. Every partition has its own file named
+//after the key and the partition count, so partitions can be saved and loaded separately.
+public class PartitionedCatalog {
+    //Attributes
+    private final Catalog[] partitions;
+    private final Key key;
+
+    public enum Key {
+        PUBLISHER, TAG
+    }
+
+    private interface PartitionTask {
+        void run(int index) throws IOException;
+    }
+
+    public PartitionedCatalog(int partitions, Key key) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("[ERROR] A catalog needs at least one partition");
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("[ERROR] Partition key cannot be null");
+        }
+        this.key = key;
+        this.partitions = new Catalog[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Catalog();
+        }
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    public Catalog getPartition(int index) {
+        if (index < 0 || index >= partitions.length) {
+            throw new IllegalArgumentException("[ERROR] Partition " + index + " does not exist");
+        }
+        return partitions[index];
+    }
+
+    //String hashes are fixed by the language, so a saved partition stays valid for the next run.
+    //Invalid input goes to partition 0, where the constructor rejects it.
+    public int partitionOf(String publisher, List<String> themeTags) {
+        String value;
+        if (key == Key.PUBLISHER) {
+            value = publisher;
+        } else {
+            value = themeTags == null || themeTags.isEmpty() || themeTags.get(0) == null ? null : themeTags.get(0).trim();
+        }
+        return value == null ? 0 : Math.floorMod(value.hashCode(), partitions.length);
+    }
+
+    public DigitalGame add(String title, String publisher, String description, Double price, LocalDate releaseDate, List<String> themeTags, String publisherNote) {
+        return new DigitalGame(partitions[partitionOf(publisher, themeTags)], title, publisher, description, price, releaseDate, themeTags, publisherNote);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Catalog partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    public List<DigitalGame> getAllGames() {
+        List<DigitalGame> games = new ArrayList<>(size());
+        for (Catalog partition : partitions) {
+            games.addAll(partition.getAllGames());
+        }
+        return Collections.unmodifiableList(games);
+    }
+
+    public List<DigitalGame> findWithSimilarTag(String tag) {
+        return merge(partition -> partition.findWithSimilarTag(tag));
+    }
+
+    public List<DigitalGame> findWithTags(String query) {
+        return merge(partition -> partition.findWithTags(query));
+    }
+
+    public List<DigitalGame> findWithPriceBetween(Double min, Double max) {
+        return merge(partition -> partition.findWithPriceBetween(min, max));
+    }
+
+    public List<DigitalGame> findReleasedBetween(LocalDate from, LocalDate to) {
+        return merge(partition -> partition.findReleasedBetween(from, to));
+    }
+
+    public List<DigitalGame> findByPublisher(String publisher) {
+        return merge(partition -> partition.findByPublisher(publisher));
+    }
+
+    public List<DigitalGame> find(GameQuery query) {
+        return merge(query::find);
+    }
+
+    public long getTotalPriceCents() {
+        long total = 0;
+        for (Catalog partition : partitions) {
+            total += partition.getTotalPriceCents();
+        }
+        return total;
+    }
+
+    public Path partitionFile(Path directory, int index) {
+        getPartition(index);
+        return directory.resolve(String.format(Locale.ROOT, "%s-%03d-of-%03d.bin", key.name().toLowerCase(Locale.ROOT), index, partitions.length));
+    }
+
+    //Every partition is written to its own file in parallel
+    public void save(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        forEach(IntStream.range(0, partitions.length).toArray(), index -> partitions[index].saveExtent(partitionFile(directory, index)));
+    }
+
+    //Loads the given partitions in parallel, all of them when none are given. The other partitions keep their games.
+    public void load(Path directory, int... indexes) throws IOException {
+        int[] selected = indexes.length == 0 ? IntStream.range(0, partitions.length).toArray() : indexes;
+        for (int index : selected) {
+            getPartition(index);
+        }
+        forEach(selected, index -> partitions[index].loadExtent(partitionFile(directory, index)));
+    }
+
+    private List<DigitalGame> merge(Function<Catalog, List<DigitalGame>> query) {
+        if (partitions.length == 1) {
+            return query.apply(partitions[0]);
+        }
+        List<CompletableFuture<List<DigitalGame>>> results = new ArrayList<>(partitions.length);
+        for (Catalog partition : partitions) {
+            results.add(CompletableFuture.supplyAsync(() -> query.apply(partition)));
+        }
+        List<DigitalGame> merged = new ArrayList<>();
+        for (CompletableFuture<List<DigitalGame>> result : results) {
+            try {
+                merged.addAll(result.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    //Waits for every partition, the first I/O error is rethrown once all of them are done
+    private static void forEach(int[] indexes, PartitionTask task) throws IOException {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    task.run(index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> pending : tasks) {
+            try {
+                pending.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure instanceof UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
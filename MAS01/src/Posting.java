@@ -0,0 +1,76 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Games sharing one index key, kept in extent order.
+//Skip list sizes are computed by walking the list, so the count is tracked next to it.
+class Posting {
+    //Attributes
+    static final Comparator<DigitalGame> EXTENT_ORDER = Comparator.comparingInt(DigitalGame::getOrdinal);
+    private final Set<DigitalGame> games = new ConcurrentSkipListSet<>(EXTENT_ORDER);
+    private final AtomicInteger size = new AtomicInteger();
+
+    Set<DigitalGame> games() {
+        return games;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    static <K> void add(Map<K, Posting> postings, K key, DigitalGame game) {
+        postings.compute(key, (k, posting) -> {
+            if (posting == null) {
+                posting = new Posting();
+            }
+            if (posting.games.add(game)) {
+                posting.size.incrementAndGet();
+            }
+            return posting;
+        });
+    }
+
+    //One map update for a whole batch of games with the same key
+    static <K> void addAll(Map<K, Posting> postings, K key, Collection<DigitalGame> games) {
+        postings.compute(key, (k, posting) -> {
+            if (posting == null) {
+                posting = new Posting();
+            }
+            int added = 0;
+            for (DigitalGame game : games) {
+                if (posting.games.add(game)) {
+                    added++;
+                }
+            }
+            posting.size.addAndGet(added);
+            return posting;
+        });
+    }
+
+    //Empty postings are dropped so range scans do not walk dead keys
+    static <K> void remove(Map<K, Posting> postings, K key, DigitalGame game) {
+        postings.computeIfPresent(key, (k, posting) -> {
+            if (posting.games.remove(game) && posting.size.decrementAndGet() == 0) {
+                return null;
+            }
+            return posting;
+        });
+    }
+
+    //Number of games in the postings, counting stops once it goes past the limit
+    static int count(Iterable<Posting> postings, int limit) {
+        int count = 0;
+        for (Posting posting : postings) {
+            count += posting.size();
+            if (count > limit) {
+                return count;
+            }
+        }
+        return count;
+    }
+}
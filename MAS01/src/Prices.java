@@ -0,0 +1,76 @@
+package org.example;
+
+//Prices are kept as long cents. Conversions and parsing here do not allocate and report bad input with INVALID.
+public class Prices {
+    //Attributes
+    public static final long INVALID = -1;
+    private static final int TOLERANCE_ULPS = 4;
+    static final long MAX_CENTS = Long.MAX_VALUE / 1_000_000_000L;
+
+    private Prices() {
+    }
+
+    //Cents of a price with at most two decimal places, INVALID otherwise.
+    //Doubles cannot hold most decimal fractions exactly (0.29 * 100 is 28.999999999999996),
+    //so the scaled value only has to be within a few ulps of a whole number of cents. The tolerance must not grow
+    //with the price, at 10000.005 a relative one would accept the half cent.
+    public static long toCents(double price) {
+        double scaled = price * 100;
+        if (!(scaled >= 0) || scaled > MAX_CENTS) {
+            return INVALID;
+        }
+        long cents = Math.round(scaled);
+        if (Math.abs(scaled - cents) > Math.ulp(scaled) * TOLERANCE_ULPS) {
+            return INVALID;
+        }
+        return cents;
+    }
+
+    //Parses "29", "29.9" or "29.99" (comma accepted as separator) into cents, INVALID for anything else
+    public static long parseCents(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        int length = text.length();
+        long units = 0;
+        int i = 0;
+        for (; i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+            units = units * 10 + (text.charAt(i) - '0');
+            if (units > MAX_CENTS / 100) {
+                return INVALID;
+            }
+        }
+        if (i == 0) {
+            return INVALID;
+        }
+        long cents = units * 100;
+        if (i == length) {
+            return cents;
+        }
+
+        char separator = text.charAt(i++);
+        int decimals = length - i;
+        if ((separator != '.' && separator != ',') || decimals < 1 || decimals > 2) {
+            return INVALID;
+        }
+        int fraction = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            fraction = fraction * 10 + (c - '0');
+        }
+        return cents + (decimals == 1 ? fraction * 10 : fraction);
+    }
+
+    public static double toPrice(long cents) {
+        return cents / 100d;
+    }
+
+    //Price after taking the percentage off, rounded half up and never below one cent
+    public static long discount(long cents, int percent) {
+        long discounted = (cents * (100 - percent) + 50) / 100;
+        return Math.max(1, discounted);
+    }
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//Results of tag queries by query text. Every entry remembers the tags its query reads, so a game gaining or losing
+//a tag only drops the entries that read that tag. The results are immutable lists shared by every caller.
+//Hits take no lock, they read the concurrent map and stamp the entry's last use. Storing, invalidating and evicting
+//are serialized; over the bounds the least recently used entries are dropped in one pass.
+class QueryCache {
+    //Attributes
+    static final int MAX_ENTRIES = 1024;
+    static final long MAX_GAMES = 4_000_000;
+    private static volatile boolean enabled = !"false".equals(System.getProperty("queryCache.enabled"));
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long version;
+    private long games;
+
+    record Stats(long hits, long misses, int entries, long games) {
+        double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    private static class Entry {
+        private final List<DigitalGame> result;
+        private final List<String> tags;
+        private volatile long used = System.nanoTime();
+
+        Entry(List<DigitalGame> result, List<String> tags) {
+            this.result = result;
+            this.tags = tags;
+        }
+    }
+
+    static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    //The query runs outside the lock. Its result is only kept if no tag changed meanwhile, the change may be missing from it.
+    List<DigitalGame> get(String key, List<String> tags, Supplier<List<DigitalGame>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        long started = version;
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.used = System.nanoTime();
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        List<DigitalGame> result = query.get();
+        if (result.size() > MAX_GAMES) {
+            return result;
+        }
+        writeLock.lock();
+        try {
+            if (version == started && !entries.containsKey(key)) {
+                entries.put(key, new Entry(result, tags));
+                games += result.size();
+                for (String tag : tags) {
+                    keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+                }
+                if (entries.size() > MAX_ENTRIES || games > MAX_GAMES) {
+                    evict();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return result;
+    }
+
+    //Called after the tag index has changed
+    void invalidate(int... tagIds) {
+        writeLock.lock();
+        try {
+            version++;
+            for (int id : tagIds) {
+                Set<String> keys = keysByTag.get(TagDictionary.name(id));
+                if (keys != null) {
+                    for (String key : List.copyOf(keys)) {
+                        remove(key);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void clear() {
+        writeLock.lock();
+        try {
+            version++;
+            entries.clear();
+            keysByTag.clear();
+            games = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    Stats stats() {
+        writeLock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), entries.size(), games);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    //Drops the least recently used entries until both bounds have a quarter to spare, so the next stores do not evict again
+    private void evict() {
+        record Use(String key, long used) {
+        }
+        List<Use> uses = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> uses.add(new Use(key, entry.used)));
+        uses.sort(Comparator.comparingLong(Use::used));
+        for (Use use : uses) {
+            if (entries.size() <= MAX_ENTRIES * 3 / 4 && games <= MAX_GAMES * 3 / 4) {
+                return;
+            }
+            remove(use.key());
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        games -= entry.result.size();
+        for (String tag : entry.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+//Sorted price, release date and publisher -> games postings, range lookups are lock-free
+class SecondaryIndexes {
+    //Attributes
+    private final NavigableMap<Long, Posting> prices = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, Posting> releaseDates = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Posting> publishers = new ConcurrentSkipListMap<>();
+
+    static SecondaryIndexes of(List<DigitalGame> games) {
+        SecondaryIndexes indexes = new SecondaryIndexes();
+        for (DigitalGame game : games) {
+            indexes.add(game);
+        }
+        return indexes;
+    }
+
+    void add(DigitalGame game) {
+        Posting.add(prices, game.getPriceCents(), game);
+        Posting.add(releaseDates, game.getReleaseDate().toEpochDay(), game);
+        Posting.add(publishers, game.getPublisher(), game);
+    }
+
+    //The game is added under the new key before it leaves the old one, so readers always find it under one of them
+    void updatePrice(DigitalGame game, long oldCents, long newCents) {
+        if (oldCents != newCents) {
+            Posting.add(prices, newCents, game);
+            Posting.remove(prices, oldCents, game);
+        }
+    }
+
+    void updateReleaseDate(DigitalGame game, LocalDate oldDate, LocalDate newDate) {
+        if (!oldDate.equals(newDate)) {
+            Posting.add(releaseDates, newDate.toEpochDay(), game);
+            Posting.remove(releaseDates, oldDate.toEpochDay(), game);
+        }
+    }
+
+    void updatePublisher(DigitalGame game, String oldPublisher, String newPublisher) {
+        if (!oldPublisher.equals(newPublisher)) {
+            Posting.add(publishers, newPublisher, game);
+            Posting.remove(publishers, oldPublisher, game);
+        }
+    }
+
+    Collection<Posting> prices(long minCents, long maxCents) {
+        return prices.subMap(minCents, true, maxCents, true).values();
+    }
+
+    Collection<Posting> releaseDates(long fromEpochDay, long toEpochDay) {
+        return releaseDates.subMap(fromEpochDay, true, toEpochDay, true).values();
+    }
+
+    Posting publisher(String publisher) {
+        return publishers.get(publisher);
+    }
+}
@@ -0,0 +1,279 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+//Compressed extent snapshot (big endian):
+//  header  magic, version, game count, block count, CRC32C of the header and the block table, stamp
+//  table   per block: file offset, compressed length, uncompressed length, game count, CRC32C of the compressed bytes
+//  blocks  Deflater output of: dictionary of the block's publishers and tags, records in the extent file layout
+//Blocks carry their own dictionary, so they are compressed and decoded independently on the common pool.
+//The stamp ties the text index sidecar to this copy, as in ExtentFile.
+//The file is written next to the target and moved over it when complete, a crash leaves the old snapshot intact.
+class SnapshotFile {
+    //Attributes
+    static final int MAGIC = 0x4D41535A;
+    static final int VERSION = 2;
+    static final int BLOCK_GAMES = 8192;
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE = 24;
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+    //Blocks compressed ahead of the writer, so memory stays bounded however large the extent is
+    private static final int WINDOW = 2 * Runtime.getRuntime().availableProcessors() + 2;
+
+    //Documents are tokenized with the block when the caller builds a text index
+    private record Block(int games, int rawLength, byte[] compressed, int compressedLength, int checksum, TextIndex.Document[] documents) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    static boolean isSnapshotFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            ExtentFile.readFully(channel, magic, 0);
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    //The text builder, when given, sees the same strings as the records. Blocks are added to it in order.
+    static int write(Path path, List<DigitalGame> games, TextIndex.Builder text) throws IOException {
+        int stamp = ThreadLocalRandom.current().nextInt() | 1;
+        int blocks = (games.size() + BLOCK_GAMES - 1) / BLOCK_GAMES;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer table = ByteBuffer.allocate(HEADER_SIZE + ENTRY_SIZE * blocks);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = table.capacity();
+            table.position(HEADER_SIZE);
+            ArrayDeque<CompletableFuture<Block>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            for (int written = 0; written < blocks; written++) {
+                while (submitted < blocks && pending.size() < WINDOW) {
+                    int from = submitted * BLOCK_GAMES;
+                    List<DigitalGame> slice = games.subList(from, Math.min(games.size(), from + BLOCK_GAMES));
+                    pending.add(CompletableFuture.supplyAsync(() -> encode(slice, text != null)));
+                    submitted++;
+                }
+                Block block = join(pending.poll());
+                table.putLong(position).putInt(block.compressedLength).putInt(block.rawLength).putInt(block.games).putInt(block.checksum);
+                ByteBuffer bytes = ByteBuffer.wrap(block.compressed, 0, block.compressedLength);
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+                for (int i = 0; text != null && i < block.games; i++) {
+                    text.add(written * BLOCK_GAMES + i, block.documents[i]);
+                }
+            }
+
+            table.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, games.size()).putInt(12, blocks).putInt(20, stamp);
+            table.putInt(16, tableChecksum(table.array()));
+            table.clear();
+            while (table.hasRemaining()) {
+                channel.write(table, table.position());
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stamp;
+    }
+
+    //Stamp of the file, 0 when it is too short to have one
+    static int readStamp(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            ExtentFile.readFully(channel, header, 0);
+            return header.hasRemaining() ? 0 : header.getInt(20);
+        }
+    }
+
+    //Blocks are read in order on the calling thread, checked, inflated and decoded in parallel
+    static List<DigitalGame> read(Path path) throws IOException {
+        List<CompletableFuture<List<DigitalGame>>> blocks = new ArrayList<>();
+        int count;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            ExtentFile.readFully(channel, header, 0);
+            if (header.position() < 8 || header.getInt(0) != MAGIC) {
+                throw new IOException("[ERROR] Not a game snapshot file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("[ERROR] Unsupported snapshot file version " + header.getInt(4));
+            }
+            if (header.hasRemaining()) {
+                throw new IOException("[ERROR] Snapshot header is corrupt");
+            }
+            count = header.getInt(8);
+            int blockCount = header.getInt(12);
+            if (count < 0 || blockCount < 0 || HEADER_SIZE + (long) ENTRY_SIZE * blockCount > channel.size()) {
+                throw new IOException("[ERROR] Snapshot header is corrupt");
+            }
+            ByteBuffer table = ByteBuffer.allocate(HEADER_SIZE + ENTRY_SIZE * blockCount);
+            table.put(header.flip());
+            ExtentFile.readFully(channel, table, HEADER_SIZE);
+            if (tableChecksum(table.array()) != header.getInt(16)) {
+                throw new IOException("[ERROR] Snapshot header is corrupt");
+            }
+
+            table.position(HEADER_SIZE);
+            for (int i = 0; i < blockCount; i++) {
+                long offset = table.getLong();
+                int compressedLength = table.getInt();
+                int rawLength = table.getInt();
+                int games = table.getInt();
+                int checksum = table.getInt();
+                if (compressedLength < 0 || rawLength < 0 || offset + compressedLength > channel.size()) {
+                    throw new IOException("[ERROR] Snapshot block " + i + " is corrupt");
+                }
+                ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+                ExtentFile.readFully(channel, compressed, offset);
+                int block = i;
+                blocks.add(CompletableFuture.supplyAsync(() -> decode(block, compressed.array(), rawLength, games, checksum)));
+            }
+        }
+
+        List<DigitalGame> games = new ArrayList<>(count);
+        for (CompletableFuture<List<DigitalGame>> block : blocks) {
+            games.addAll(join(block));
+        }
+        if (games.size() != count) {
+            throw new IOException("[ERROR] Snapshot holds " + games.size() + " games instead of " + count);
+        }
+        return games;
+    }
+
+    private static Block encode(List<DigitalGame> games, boolean tokenize) {
+        ExtentFile.Writer records = new ExtentFile.Writer();
+        ExtentFile.Writer raw = new ExtentFile.Writer();
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        TextIndex.Document[] documents = tokenize ? new TextIndex.Document[games.size()] : null;
+        try {
+            for (int i = 0; i < games.size(); i++) {
+                DigitalGame game = games.get(i);
+                String title = game.getTitle();
+                String description = game.getDescription();
+                String publisherNote = game.getPublisherNote();
+                records.putRecord(game, title, description, publisherNote, game.getTagIds(), ids, dictionary);
+                if (documents != null) {
+                    documents[i] = TextIndex.Document.of(title, description, publisherNote);
+                }
+            }
+            raw.putInt(dictionary.size());
+            for (String value : dictionary) {
+                raw.putString(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        //The dictionary goes first, the decoder needs it before the records
+        ByteBuffer head = raw.written();
+        ByteBuffer body = records.written();
+        int rawLength = head.remaining() + body.remaining();
+        byte[] compressed = new byte[Math.max(64, rawLength / 2)];
+        int length = 0;
+        Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+        try {
+            deflater.setInput(head);
+            boolean last = false;
+            while (!deflater.finished()) {
+                if (!last && deflater.needsInput()) {
+                    deflater.setInput(body);
+                    deflater.finish();
+                    last = true;
+                }
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+        } finally {
+            deflater.end();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(compressed, 0, length);
+        return new Block(games.size(), rawLength, compressed, length, (int) crc.getValue(), documents);
+    }
+
+    private static List<DigitalGame> decode(int block, byte[] compressed, int rawLength, int count, int checksum) {
+        CRC32C crc = new CRC32C();
+        crc.update(compressed);
+        if ((int) crc.getValue() != checksum) {
+            throw new UncheckedIOException(new IOException("[ERROR] Snapshot block " + block + " is corrupt"));
+        }
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength || !inflater.finished()) {
+                throw new DataFormatException("length " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("[ERROR] Snapshot block " + block + " is corrupt"));
+        } finally {
+            inflater.end();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(raw);
+            String[] dictionary = ExtentFile.readDictionary(buffer, 0);
+            int[] tagIds = ExtentFile.tagIds(dictionary);
+            List<DigitalGame> games = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                games.add(ExtentFile.readRecord(buffer, rawLength, dictionary, tagIds));
+            }
+            return games;
+        } catch (IOException e) {
+            throw new UncheckedIOException(new IOException("[ERROR] Snapshot block " + block + " is corrupt", e));
+        }
+    }
+
+    //Header without its checksum field at 16, then the stamp at 20 and the block table
+    private static int tableChecksum(byte[] table) {
+        CRC32C crc = new CRC32C();
+        crc.update(table, 0, 16);
+        crc.update(table, 20, table.length - 20);
+        return (int) crc.getValue();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
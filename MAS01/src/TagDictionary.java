@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Global tag -> int id table. Ids are handed out once and never reused, so they can stand in for the strings.
+final class TagDictionary {
+    //Attributes
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size = 0;
+
+    private TagDictionary() {
+    }
+
+    static int intern(String tag) {
+        Integer id = ids.get(tag);
+        return id != null ? id : add(tag);
+    }
+
+    //Id of a known tag or -1, lookups never grow the dictionary
+    static int find(String tag) {
+        Integer id = ids.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    static int size() {
+        return ids.size();
+    }
+
+    static String name(int id) {
+        return names[id];
+    }
+
+    //The name is stored before the id is published, so whoever can see an id can also read its name
+    private static synchronized int add(String tag) {
+        Integer id = ids.get(tag);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = tag;
+        ids.put(tag, size);
+        return size++;
+    }
+
+    //One bit per tag id, the array is as long as the highest id needs
+    static long[] bits(int[] tagIds) {
+        int max = -1;
+        for (int id : tagIds) {
+            max = Math.max(max, id);
+        }
+        long[] bits = new long[max < 0 ? 0 : (max >>> 6) + 1];
+        for (int id : tagIds) {
+            bits[id >>> 6] |= 1L << id;
+        }
+        return bits;
+    }
+}
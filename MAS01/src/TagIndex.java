@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Tag id -> games postings kept in extent order, lookups are lock-free.
+//Tags unknown to the TagDictionary have no games, looking them up never interns them.
+class TagIndex {
+    //Attributes
+    private final Map<Integer, Posting> postings = new ConcurrentHashMap<>();
+
+    static TagIndex of(List<DigitalGame> games) {
+        TagIndex index = new TagIndex();
+        index.addAll(games);
+        return index;
+    }
+
+    //Games are grouped by tag first, so every posting is updated once per batch and not once per game
+    void addAll(List<DigitalGame> games) {
+        Map<Integer, List<DigitalGame>> byTag = new HashMap<>();
+        for (DigitalGame game : games) {
+            for (int tagId : game.getTagIds()) {
+                byTag.computeIfAbsent(tagId, id -> new ArrayList<>()).add(game);
+            }
+        }
+        byTag.forEach((tagId, tagged) -> Posting.addAll(postings, tagId, tagged));
+    }
+
+    void add(DigitalGame game, int tagId) {
+        Posting.add(postings, tagId, game);
+    }
+
+    void addAll(DigitalGame game, int[] tagIds) {
+        for (int tagId : tagIds) {
+            add(game, tagId);
+        }
+    }
+
+    void remove(DigitalGame game, int tagId) {
+        Posting.remove(postings, tagId, game);
+    }
+
+    List<DigitalGame> find(String tag) {
+        Posting posting = posting(tag);
+        return posting == null ? List.of() : new ArrayList<>(posting.games());
+    }
+
+    List<DigitalGame> findAll(List<String> tags) {
+        List<Posting> lists = new ArrayList<>();
+        for (String tag : tags) {
+            Posting posting = posting(tag);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        lists.sort(Comparator.comparingInt(Posting::size));
+
+        List<DigitalGame> result = new ArrayList<>();
+        outer:
+        for (DigitalGame game : lists.get(0).games()) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).games().contains(game)) {
+                    continue outer;
+                }
+            }
+            result.add(game);
+        }
+        return result;
+    }
+
+    List<DigitalGame> findAny(List<String> tags) {
+        Set<DigitalGame> result = new HashSet<>();
+        for (String tag : tags) {
+            Posting posting = posting(tag);
+            if (posting != null) {
+                result.addAll(posting.games());
+            }
+        }
+        return sorted(result);
+    }
+
+    int size(String tag) {
+        Posting posting = posting(tag);
+        return posting == null ? 0 : posting.size();
+    }
+
+    Posting posting(String tag) {
+        int id = TagDictionary.find(tag);
+        return id < 0 ? null : postings.get(id);
+    }
+
+    Posting posting(int tagId) {
+        return postings.get(tagId);
+    }
+
+    static List<DigitalGame> sorted(Collection<DigitalGame> games) {
+        List<DigitalGame> result = new ArrayList<>(games);
+        result.sort(Posting.EXTENT_ORDER);
+        return result;
+    }
+}
@@ -0,0 +1,175 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Ranks games by the Jaccard similarity of their tag bitsets. The scan over the extent is split across the fork-join
+//pool, every leaf keeps its own bounded top-k and the leaves are merged on the way up. Neighbour lists are cached
+//per game and a tag change only drops the lists it can alter.
+//Every list carries the version it is valid at. A tag change moves the lists it checked and kept to the new version,
+//a list stored after that check keeps its older version and is never served.
+class TagSimilarity {
+    //Attributes
+    private static final int LEAF_SIZE = 4096;
+    private static final int MAX_CACHED = 4096;
+    private final Map<DigitalGame, Neighbours> cache = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    List<DigitalGame> findSimilar(DigitalGame game, int limit, List<DigitalGame> games) {
+        long started = version.get();
+        Neighbours cached = cache.get(game);
+        if (cached != null && cached.version == started && cached.limit >= limit) {
+            cached.used = System.nanoTime();
+            return cached.games.subList(0, Math.min(limit, cached.games.size()));
+        }
+
+        TopK top = new Scan(games, game, game.getTagBits(), limit, 0, games.size()).invoke();
+        float lowest = top.size() < limit ? 0 : top.lowestScore();
+        List<DigitalGame> result = new ArrayList<>(top.size());
+        for (int ordinal : top.sorted()) {
+            result.add(games.get(ordinal));
+        }
+        result = List.copyOf(result);
+
+        //A tag change during the scan may already be missing from the result, so it is not cached then
+        if (version.get() == started) {
+            cache.put(game, new Neighbours(result, limit, lowest, started));
+            evict();
+        }
+        return result;
+    }
+
+    //Drops the cached lists the game could enter or leave with its current tags, the others stay valid. A list that
+    //missed an earlier change is left behind at its version.
+    void tagsChanged(DigitalGame changed) {
+        long current = version.incrementAndGet();
+        cache.remove(changed);
+        long[] bits = changed.getTagBits();
+        for (DigitalGame game : cache.keySet()) {
+            cache.computeIfPresent(game, (key, neighbours) -> {
+                float score = similarity(key.getTagBits(), bits);
+                if (neighbours.games.contains(changed) || score > 0 && score >= neighbours.lowest) {
+                    return null;
+                }
+                return neighbours.version == current - 1 ? neighbours.at(current) : neighbours;
+            });
+        }
+    }
+
+    void clear() {
+        version.incrementAndGet();
+        cache.clear();
+    }
+
+    //Jaccard index |A & B| / |A | B| over bitsets of any length, word by word with population counts
+    static float similarity(long[] a, long[] b) {
+        int common = Math.min(a.length, b.length);
+        int intersection = 0;
+        int union = 0;
+        for (int i = 0; i < common; i++) {
+            intersection += Long.bitCount(a[i] & b[i]);
+            union += Long.bitCount(a[i] | b[i]);
+        }
+        if (intersection == 0) {
+            return 0;
+        }
+        for (int i = common; i < a.length; i++) {
+            union += Long.bitCount(a[i]);
+        }
+        for (int i = common; i < b.length; i++) {
+            union += Long.bitCount(b[i]);
+        }
+        return (float) intersection / union;
+    }
+
+    //Over the bound the least recently used quarter is dropped in one pass, by whichever thread gets there first
+    private void evict() {
+        if (cache.size() <= MAX_CACHED || !evicting.tryLock()) {
+            return;
+        }
+        try {
+            record Use(DigitalGame game, Neighbours neighbours, long used) {
+            }
+            List<Use> uses = new ArrayList<>(cache.size());
+            cache.forEach((game, neighbours) -> uses.add(new Use(game, neighbours, neighbours.used)));
+            uses.sort(Comparator.comparingLong(Use::used));
+            for (int i = 0; i < uses.size() - MAX_CACHED * 3 / 4; i++) {
+                cache.remove(uses.get(i).game(), uses.get(i).neighbours());
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    //Neighbours of one game, lowest is the score a game has to reach to get into the list
+    private static class Neighbours {
+        private final List<DigitalGame> games;
+        private final int limit;
+        private final float lowest;
+        private final long version;
+        private volatile long used = System.nanoTime();
+
+        Neighbours(List<DigitalGame> games, int limit, float lowest, long version) {
+            this.games = games;
+            this.limit = limit;
+            this.lowest = lowest;
+            this.version = version;
+        }
+
+        Neighbours at(long version) {
+            Neighbours moved = new Neighbours(games, limit, lowest, version);
+            moved.used = used;
+            return moved;
+        }
+    }
+
+    private static class Scan extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+        //Tasks are never serialized, the list of games is transient to say so
+        private final transient List<DigitalGame> games;
+        private final DigitalGame target;
+        private final long[] bits;
+        private final int limit;
+        private final int from;
+        private final int to;
+
+        Scan(List<DigitalGame> games, DigitalGame target, long[] bits, int limit, int from, int to) {
+            this.games = games;
+            this.target = target;
+            this.bits = bits;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= LEAF_SIZE) {
+                TopK top = new TopK(limit);
+                for (int i = from; i < to; i++) {
+                    DigitalGame other = games.get(i);
+                    if (other != target) {
+                        float score = similarity(bits, other.getTagBits());
+                        if (score > 0) {
+                            top.offer(i, score);
+                        }
+                    }
+                }
+                return top;
+            }
+            int middle = (from + to) >>> 1;
+            Scan left = new Scan(games, target, bits, limit, from, middle);
+            left.fork();
+            TopK top = new Scan(games, target, bits, limit, middle, to).compute();
+            top.addAll(left.join());
+            return top;
+        }
+    }
+}
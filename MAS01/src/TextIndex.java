@@ -0,0 +1,386 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Inverted index over title, description and publisher note with BM25 ranking. Terms of the last build sit in sorted
+//primitive arrays, games changed or added since then are indexed again in a small concurrent overlay that shadows them.
+//Sidecar file layout: magic, version, extent stamp, documents, total length, terms, then per term the string and
+//gap-encoded (record number, frequency) varint pairs, then every document length as a varint.
+class TextIndex {
+    //Attributes
+    static final int TITLE_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAGIC = 0x4D415354;
+    private static final int VERSION = 1;
+    private static final int MIN_OVERLAY = 1024;
+
+    private final String[] terms;
+    private final int[][] postings;
+    private final short[][] frequencies;
+    private final int[] lengths;
+    private final AtomicLongArray replaced;
+    private final Map<String, Map<Integer, Integer>> overlay = new ConcurrentHashMap<>();
+    private final Map<Integer, Document> overlayDocuments = new ConcurrentHashMap<>();
+    private final AtomicLong totalLength;
+    private final AtomicInteger documents;
+    //Score arrays are reused and only their touched slots are cleared. The catalog server searches on virtual threads,
+    //so the arrays are pooled instead of kept per thread.
+    private final BlockingQueue<float[]> scoreArrays = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private TextIndex(String[] terms, int[][] postings, short[][] frequencies, int[] lengths, long totalLength) {
+        this.terms = terms;
+        this.postings = postings;
+        this.frequencies = frequencies;
+        this.lengths = lengths;
+        this.replaced = new AtomicLongArray((lengths.length + 63) >>> 6);
+        this.totalLength = new AtomicLong(totalLength);
+        this.documents = new AtomicInteger(lengths.length);
+    }
+
+    static TextIndex of(List<DigitalGame> games) {
+        Builder builder = new Builder();
+        for (int i = 0; i < games.size(); i++) {
+            DigitalGame game = games.get(i);
+            builder.add(i, game.getTitle(), game.getDescription(), game.getPublisherNote());
+        }
+        return builder.build();
+    }
+
+    static Path sidecar(Path extent) {
+        return extent.resolveSibling(extent.getFileName() + ".text");
+    }
+
+    //Indexes the current text of the game again, the previous version of the document stops matching
+    void update(int ordinal, DigitalGame game) {
+        Document document = Document.of(game.getTitle(), game.getDescription(), game.getPublisherNote());
+        Document previous = overlayDocuments.put(ordinal, document);
+        if (previous != null) {
+            for (String term : previous.terms.keySet()) {
+                overlay.computeIfPresent(term, (t, games) -> {
+                    games.remove(ordinal);
+                    return games.isEmpty() ? null : games;
+                });
+            }
+            totalLength.addAndGet(-previous.length);
+        } else if (ordinal < lengths.length) {
+            replaced.getAndUpdate(ordinal >>> 6, bits -> bits | 1L << ordinal);
+            totalLength.addAndGet(-lengths[ordinal]);
+        } else {
+            documents.incrementAndGet();
+        }
+        for (Map.Entry<String, Integer> entry : document.terms.entrySet()) {
+            overlay.compute(entry.getKey(), (t, games) -> {
+                if (games == null) {
+                    games = new ConcurrentHashMap<>();
+                }
+                games.put(ordinal, entry.getValue());
+                return games;
+            });
+        }
+        totalLength.addAndGet(document.length);
+    }
+
+    //The overlay is meant to stay small, past that a fresh build is cheaper than shadowing the arrays
+    boolean needsRebuild() {
+        return overlayDocuments.size() > Math.max(MIN_OVERLAY, lengths.length / 8);
+    }
+
+    //Record numbers of the best k documents, best first. Query words ending with '*' match every term they start.
+    int[] search(String query, int k, int games) {
+        Set<String> matched = new LinkedHashSet<>();
+        for (String word : query.trim().split("\\s+")) {
+            Map<String, Integer> tokens = new LinkedHashMap<>();
+            tokenize(word, 1, tokens);
+            int i = 0;
+            for (String token : tokens.keySet()) {
+                if (word.endsWith("*") && ++i == tokens.size()) {
+                    expandPrefix(token, matched);
+                } else {
+                    matched.add(token);
+                }
+            }
+        }
+
+        int count = documents.get();
+        double averageLength = Math.max(1, (double) totalLength.get() / Math.max(1, count));
+        int size = Math.max(games, lengths.length);
+        float[] scores = scoreArrays.poll();
+        if (scores == null || scores.length < size) {
+            scores = new float[size];
+        }
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (String term : matched) {
+            int index = Arrays.binarySearch(terms, term);
+            Map<Integer, Integer> changed = overlay.get(term);
+            int frequency = (index >= 0 ? postings[index].length : 0) + (changed == null ? 0 : changed.size());
+            if (frequency == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+
+            if (index >= 0) {
+                int[] ordinals = postings[index];
+                short[] tfs = frequencies[index];
+                for (int i = 0; i < ordinals.length; i++) {
+                    int ordinal = ordinals[i];
+                    if (isReplaced(ordinal)) {
+                        continue;
+                    }
+                    if (scores[ordinal] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = ordinal;
+                    }
+                    scores[ordinal] += score(idf, tfs[i], lengths[ordinal], averageLength);
+                }
+            }
+            if (changed != null) {
+                for (Map.Entry<Integer, Integer> entry : changed.entrySet()) {
+                    int ordinal = entry.getKey();
+                    Document document = overlayDocuments.get(ordinal);
+                    if (ordinal >= size || document == null) {
+                        continue;
+                    }
+                    if (scores[ordinal] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = ordinal;
+                    }
+                    scores[ordinal] += score(idf, entry.getValue(), document.length, averageLength);
+                }
+            }
+        }
+
+        TopK top = new TopK(k);
+        for (int i = 0; i < touchedCount; i++) {
+            top.offer(touched[i], scores[touched[i]]);
+            scores[touched[i]] = 0;
+        }
+        scoreArrays.offer(scores);
+        return top.sorted();
+    }
+
+    //Written next to the target, forced and moved over it, so a crash never leaves a torn file with a matching stamp
+    void write(Path path, int stamp) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ExtentFile.Writer writer = new ExtentFile.Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(stamp);
+            writer.putInt(lengths.length);
+            writer.putLong(totalLength.get());
+            writer.putInt(terms.length);
+            for (int i = 0; i < terms.length; i++) {
+                writer.putString(terms[i]);
+                writer.putVarint(postings[i].length);
+                int previous = 0;
+                for (int j = 0; j < postings[i].length; j++) {
+                    writer.putVarint(postings[i][j] - previous);
+                    writer.putVarint(frequencies[i][j]);
+                    previous = postings[i][j];
+                }
+            }
+            for (int length : lengths) {
+                writer.putVarint(length);
+            }
+            writer.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //Index saved next to an extent file, null when it is missing, damaged or was written for another version of the
+    //extent. The caller then rebuilds it from the games.
+    static TextIndex read(Path path, int stamp, int games) throws IOException {
+        if (stamp == 0 || !Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < 24) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            ExtentFile.readFully(channel, buffer, 0);
+            buffer.flip();
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != stamp || buffer.getInt() != games) {
+            return null;
+        }
+
+        try {
+            return decode(buffer, games);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    //Counts are checked against the bytes left, every entry takes at least one, so a damaged count cannot allocate
+    //more than the file holds. Returns null when a record number lies outside the games.
+    private static TextIndex decode(ByteBuffer buffer, int games) {
+        long totalLength = buffer.getLong();
+        int termCount = buffer.getInt();
+        if (termCount < 0 || termCount > buffer.remaining()) {
+            return null;
+        }
+        String[] terms = new String[termCount];
+        int[][] postings = new int[terms.length][];
+        short[][] frequencies = new short[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = ExtentFile.getString(buffer);
+            int count = ExtentFile.getVarInt(buffer);
+            if (terms[i] == null || count < 0 || count > buffer.remaining() / 2) {
+                return null;
+            }
+            postings[i] = new int[count];
+            frequencies[i] = new short[count];
+            int ordinal = 0;
+            for (int j = 0; j < count; j++) {
+                ordinal += ExtentFile.getVarInt(buffer);
+                if (ordinal < 0 || ordinal >= games) {
+                    return null;
+                }
+                postings[i][j] = ordinal;
+                frequencies[i][j] = (short) ExtentFile.getVarInt(buffer);
+            }
+        }
+        int[] lengths = new int[games];
+        for (int i = 0; i < games; i++) {
+            lengths[i] = ExtentFile.getVarInt(buffer);
+        }
+        return new TextIndex(terms, postings, frequencies, lengths, totalLength);
+    }
+
+    //Lower-cased runs of letters and digits, every occurrence counts weight times. Returns the weighted token count.
+    static int tokenize(String text, int weight, Map<String, Integer> terms) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); ) {
+            int c = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.appendCodePoint(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                terms.merge(token.toString(), weight, Integer::sum);
+                token.setLength(0);
+                count += weight;
+            }
+            i += Character.charCount(c);
+        }
+        return count;
+    }
+
+    private void expandPrefix(String prefix, Set<String> matched) {
+        int index = Arrays.binarySearch(terms, prefix);
+        for (int i = index < 0 ? -index - 1 : index; i < terms.length && terms[i].startsWith(prefix); i++) {
+            matched.add(terms[i]);
+        }
+        for (String term : overlay.keySet()) {
+            if (term.startsWith(prefix)) {
+                matched.add(term);
+            }
+        }
+    }
+
+    private boolean isReplaced(int ordinal) {
+        return (replaced.get(ordinal >>> 6) & 1L << ordinal) != 0;
+    }
+
+    private static float score(double idf, int frequency, int length, double averageLength) {
+        return (float) (idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength)));
+    }
+
+    //Term frequencies of one game, title terms weighted higher
+    record Document(Map<String, Integer> terms, int length) {
+        static Document of(String title, String description, String publisherNote) {
+            Map<String, Integer> terms = new HashMap<>();
+            int length = tokenize(title, TITLE_WEIGHT, terms) + tokenize(description, 1, terms) + tokenize(publisherNote, 1, terms);
+            return new Document(terms, length);
+        }
+    }
+
+    //Collects documents in record order and turns them into the sorted arrays of a fresh index
+    static class Builder {
+        private final Map<String, int[]> postings = new HashMap<>();
+        private int[] lengths = new int[1024];
+        private int documents = 0;
+        private long totalLength = 0;
+
+        void add(int ordinal, String title, String description, String publisherNote) {
+            add(ordinal, Document.of(title, description, publisherNote));
+        }
+
+        //Documents can be tokenized on other threads, they are added in ordinal order
+        void add(int ordinal, Document document) {
+            for (Map.Entry<String, Integer> entry : document.terms.entrySet()) {
+                //Growable (record number, frequency) pairs, the first slot holds the number of used entries
+                int[] pairs = postings.get(entry.getKey());
+                if (pairs == null) {
+                    pairs = new int[5];
+                    postings.put(entry.getKey(), pairs);
+                } else if (pairs[0] + 2 >= pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2 + 1);
+                    postings.put(entry.getKey(), pairs);
+                }
+                pairs[++pairs[0]] = ordinal;
+                pairs[++pairs[0]] = entry.getValue();
+            }
+            if (ordinal >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, ordinal + 1));
+            }
+            lengths[ordinal] = document.length;
+            documents = Math.max(documents, ordinal + 1);
+            totalLength += document.length;
+        }
+
+        TextIndex build() {
+            List<String> sorted = new ArrayList<>(postings.keySet());
+            sorted.sort(null);
+            String[] terms = sorted.toArray(new String[0]);
+            int[][] ordinals = new int[terms.length][];
+            short[][] frequencies = new short[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                int[] pairs = postings.get(terms[i]);
+                int count = pairs[0] / 2;
+                ordinals[i] = new int[count];
+                frequencies[i] = new short[count];
+                for (int j = 0; j < count; j++) {
+                    ordinals[i][j] = pairs[1 + 2 * j];
+                    frequencies[i][j] = (short) Math.min(Short.MAX_VALUE, pairs[2 + 2 * j]);
+                }
+            }
+            return new TextIndex(terms, ordinals, frequencies, Arrays.copyOf(lengths, documents), totalLength);
+        }
+    }
+}
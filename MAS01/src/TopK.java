@@ -0,0 +1,93 @@
+package org.example;
+
+//Bounded min-heap, the worst of the best k results sits at the root and is the one replaced
+class TopK {
+    //Attributes
+    private final int[] ordinals;
+    private final float[] scores;
+    private int size = 0;
+
+    TopK(int k) {
+        ordinals = new int[k];
+        scores = new float[k];
+    }
+
+    void offer(int ordinal, float score) {
+        if (size < ordinals.length) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (better(score, ordinal, scores[0], ordinals[0])) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    //Score of the worst result kept, the one a new result has to beat once the heap is full
+    float lowestScore() {
+        return size == 0 ? 0 : scores[0];
+    }
+
+    //Empties the heap, best result first
+    int[] sorted() {
+        int[] result = new int[size];
+        while (size > 0) {
+            result[size - 1] = ordinals[0];
+            swap(0, --size);
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(scores[parent], ordinals[parent], scores[i], ordinals[i])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (better(scores[worst], ordinals[worst], scores[child], ordinals[child])) {
+                    worst = child;
+                }
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    //Higher score wins, ties go to the game added first
+    private static boolean better(float score, int ordinal, float otherScore, int otherOrdinal) {
+        return score > otherScore || score == otherScore && ordinal < otherOrdinal;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Every field error DigitalGame.validate found, in the order the constructor checks the fields.
+//Valid input gets the shared VALID instance, so checking it allocates nothing.
+public final class ValidationResult {
+    //Attributes
+    public static final ValidationResult VALID = new ValidationResult(List.of());
+    private static final Map<String, Metrics.Counter> failures = new ConcurrentHashMap<>();
+    private final List<FieldError> errors;
+
+    public record FieldError(String field, String message) {
+    }
+
+    private ValidationResult(List<FieldError> errors) {
+        this.errors = errors;
+    }
+
+    //A null message means the field is valid, VALID itself is never modified
+    ValidationResult add(String field, String message) {
+        if (message == null) {
+            return this;
+        }
+        countFailure(field);
+        if (this == VALID) {
+            List<FieldError> first = new ArrayList<>(2);
+            first.add(new FieldError(field, message));
+            return new ValidationResult(first);
+        }
+        errors.add(new FieldError(field, message));
+        return this;
+    }
+
+    //Failures per field, as validation.failures.<field>
+    static void countFailure(String field) {
+        failures.computeIfAbsent(field, f -> Metrics.counter("validation.failures." + f)).increment();
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public List<FieldError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    //The message the setters would throw for the same input, null when valid
+    public String getFirstMessage() {
+        return errors.isEmpty() ? null : errors.get(0).message();
+    }
+
+    public void throwIfInvalid() {
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(errors.get(0).message());
+        }
+    }
+}